@@ -0,0 +1,132 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An Aho-Corasick automaton over raw bytes, answering whether any of a set of ASCII patterns occurs in a file's
+ * content in a single pass and without decoding it first. The failure links are folded into a full transition
+ * table so the scan is one array lookup per byte. Content with a UTF-16 byte order mark is scanned a code unit at a
+ * time instead, every other encoding a Dart file may have keeps ASCII as it is.
+ */
+public final class BytePatternMatcher {
+  // no ASCII pattern contains this byte, so it stands for any character outside ASCII
+  private static final int NON_ASCII = 0xff;
+
+  private final int[][] myTransitions;
+  private final boolean[] myAccepting;
+
+  private BytePatternMatcher(@NotNull int[][] transitions, @NotNull boolean[] accepting) {
+    myTransitions = transitions;
+    myAccepting = accepting;
+  }
+
+  @NotNull
+  public static BytePatternMatcher create(@NotNull Collection<String> patterns) {
+    List<int[]> transitions = new ArrayList<>();
+    List<Boolean> accepting = new ArrayList<>();
+    transitions.add(newState());
+    accepting.add(false);
+
+    // build the trie
+    for (String pattern : patterns) {
+      if (pattern.isEmpty()) {
+        continue;
+      }
+      int state = 0;
+      for (byte b : pattern.getBytes(StandardCharsets.UTF_8)) {
+        int next = transitions.get(state)[b & 0xff];
+        if (next < 0) {
+          next = transitions.size();
+          transitions.add(newState());
+          accepting.add(false);
+          transitions.get(state)[b & 0xff] = next;
+        }
+        state = next;
+      }
+      accepting.set(state, true);
+    }
+
+    // breadth first, point every missing transition at where the failure link would have taken us
+    int[] failure = new int[transitions.size()];
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    int[] root = transitions.get(0);
+    for (int b = 0; b < 256; b++) {
+      if (root[b] < 0) {
+        root[b] = 0;
+      } else {
+        failure[root[b]] = 0;
+        queue.add(root[b]);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      int[] row = transitions.get(state);
+      if (accepting.get(failure[state])) {
+        accepting.set(state, true);
+      }
+      for (int b = 0; b < 256; b++) {
+        int next = row[b];
+        if (next < 0) {
+          row[b] = transitions.get(failure[state])[b];
+        } else {
+          failure[next] = transitions.get(failure[state])[b];
+          queue.add(next);
+        }
+      }
+    }
+
+    boolean[] acceptingStates = new boolean[accepting.size()];
+    for (int i = 0; i < acceptingStates.length; i++) {
+      acceptingStates[i] = accepting.get(i);
+    }
+    return new BytePatternMatcher(transitions.toArray(new int[0][]), acceptingStates);
+  }
+
+  public boolean containsAny(@NotNull byte[] content) {
+    if (content.length >= 2) {
+      int first = content[0] & 0xff;
+      int second = content[1] & 0xff;
+      if (first == 0xfe && second == 0xff) {
+        return containsAnyUtf16(content, true);
+      }
+      if (first == 0xff && second == 0xfe) {
+        return containsAnyUtf16(content, false);
+      }
+    }
+
+    int state = 0;
+    for (byte b : content) {
+      state = myTransitions[state][b & 0xff];
+      if (myAccepting[state]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean containsAnyUtf16(@NotNull byte[] content, boolean bigEndian) {
+    int state = 0;
+    for (int i = 2; i + 1 < content.length; i += 2) {
+      int high = content[bigEndian ? i : i + 1] & 0xff;
+      int low = content[bigEndian ? i + 1 : i] & 0xff;
+      state = myTransitions[state][high == 0 && low < 0x80 ? low : NON_ASCII];
+      if (myAccepting[state]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int[] newState() {
+    int[] row = new int[256];
+    Arrays.fill(row, -1);
+    return row;
+  }
+}
@@ -1,21 +1,19 @@
 package dev.bluebiscuitdesign.cucumber.dart;
 
-import dev.bluebiscuitdesign.cucumber.dart.steps.DartAnnotatedStepDefinition;
 import dev.bluebiscuitdesign.cucumber.dart.steps.DartStepDefinitionCreator;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
-import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.indexing.FileBasedIndex;
 import com.jetbrains.lang.dart.DartFileType;
 import com.jetbrains.lang.dart.psi.DartFile;
-import com.jetbrains.lang.dart.psi.DartMethodDeclaration;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.plugins.cucumber.BDDFrameworkType;
@@ -51,52 +49,51 @@ public class CucumberDartNIExtension extends AbstractCucumberExtension {
 
   @Override
   public List<AbstractStepDefinition> loadStepsFor(@Nullable PsiFile featureFile, @NotNull Module module) {
-    final List<AbstractStepDefinition> result = new ArrayList<>();
-    final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
-
     Project project = module.getProject();
-    fileBasedIndex.processValues(DartCucumberIndex.INDEX_ID, true, null,
-            (file, value) -> {
-              ProgressManager.checkCanceled();
+    VirtualFile pubspec = featureFile != null ? DartPackageScope.findPubspec(project, featureFile) : null;
+    Object owner = pubspec != null ? pubspec : module;
 
-              PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
-              if (psiFile == null) {
-                return true;
-              }
+    GlobalSearchScope scope = getStepScope(project, pubspec);
+    if (DumbService.isDumb(project)) {
+      // the index can't be asked while it is being built, the last known definitions are better than none
+      return DartStepSnapshot.getInstance(project).getStepDefinitions(scope);
+    }
 
-              for (Integer offset : value) {
-                PsiElement element = psiFile.findElementAt(offset + 1);
-                DartMethodDeclaration member = PsiTreeUtil.getParentOfType(element, DartMethodDeclaration.class);
-                if (member == null) {
-                  continue;
-                }
-                String annotation = CucumberDartUtil.findDartCucumberAnnotation(member);
-                if (annotation != null) {
-                  result.add(new DartAnnotatedStepDefinition(member, annotation));
-                }
-              }
-              return true;
-            }, GlobalSearchScope.projectScope(project));
+    // a copy, the Gherkin plugin owns the list it gets
+    List<AbstractStepDefinition> result = new ArrayList<>(DartStepDefinitionCache.getInstance(project).getStepDefinitions(owner, scope));
+    result.addAll(DartLibraryStepCache.getInstance().getStepDefinitions(project, pubspec));
     return result;
   }
 
+  // a feature file only sees the steps of its own pub package and the packages it depends on
+  @NotNull
+  static GlobalSearchScope getStepScope(@NotNull Project project, @Nullable VirtualFile pubspec) {
+    return pubspec != null ? DartPackageScope.getScope(project, pubspec) : GlobalSearchScope.projectScope(project);
+  }
+
   @Override
   public Collection<? extends PsiFile> getStepDefinitionContainers(@NotNull GherkinFile featureFile) {
     final Module module = ModuleUtilCore.findModuleForPsiElement(featureFile);
     if (module == null) {
       return Collections.emptySet();
     }
-    List<AbstractStepDefinition> stepDefs = loadStepsFor(featureFile, module);
 
-    Set<PsiFile> result = new HashSet<>();
-    for (AbstractStepDefinition stepDef : stepDefs) {
-      PsiElement stepDefElement = stepDef.getElement();
-      if (stepDefElement != null) {
-        final PsiFile psiFile = stepDefElement.getContainingFile();
-        PsiDirectory psiDirectory = psiFile.getParent();
-        if (psiDirectory != null && isWritableStepLikeFile(psiFile, psiDirectory)) {
-          result.add(psiFile);
-        }
+    // straight from the index, finding the files does not parse them
+    Project project = featureFile.getProject();
+    GlobalSearchScope scope = getStepScope(project, DartPackageScope.findPubspec(project, featureFile));
+    List<VirtualFile> files = new ArrayList<>(FileBasedIndex.getInstance().getContainingFiles(DartCucumberIndex.INDEX_ID, true, scope));
+    files.sort(Comparator.comparing(VirtualFile::getPath));
+
+    Set<PsiFile> result = new LinkedHashSet<>();
+    PsiManager psiManager = PsiManager.getInstance(project);
+    for (VirtualFile file : files) {
+      if (!file.isWritable()) {
+        continue;
+      }
+      PsiFile psiFile = psiManager.findFile(file);
+      PsiDirectory psiDirectory = psiFile != null ? psiFile.getParent() : null;
+      if (psiDirectory != null && isWritableStepLikeFile(psiFile, psiDirectory)) {
+        result.add(psiFile);
       }
     }
     return result;
@@ -2,15 +2,14 @@ package dev.bluebiscuitdesign.cucumber.dart;
 
 import dev.bluebiscuitdesign.cucumber.dart.steps.reference.CucumberJavaAnnotationProvider;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.project.ProjectUtil;
-import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.PsiDirectory;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
-import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.indexing.FileBasedIndex;
 import com.jetbrains.lang.dart.psi.DartClassDefinition;
 import com.jetbrains.lang.dart.psi.DartMetadata;
 import com.jetbrains.lang.dart.psi.DartMethodDeclaration;
@@ -21,23 +20,18 @@ import org.jetbrains.plugins.cucumber.MapParameterTypeManager;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class CucumberDartUtil {
   public static final String PARAMETER_TYPE_CLASS = "io.cucumber.cucumberexpressions.ParameterType";
 
   private static final Map<String, String> DART_PARAMETER_TYPES;
 
-  private static final Pattern BEGIN_ANCHOR = Pattern.compile("^\\^.*");
-  private static final Pattern END_ANCHOR = Pattern.compile(".*\\$$");
-  private static final Pattern SCRIPT_STYLE_REGEXP = Pattern.compile("^/(.*)/$");
-  private static final Pattern PARENTHESIS = Pattern.compile("\\(([^)]+)\\)");
-  private static final Pattern ALPHA = Pattern.compile("[a-zA-Z]+");
-
   public static final Map<String, String> STANDARD_PARAMETER_TYPES;
   public static final MapParameterTypeManager DEFAULT;
+  // what is known without the indexes: the standard types plus the Dart specific ones
+  private static final MapParameterTypeManager DART_DEFAULT;
 
   static {
     Map<String, String> standardParameterTypes = new HashMap<>();
@@ -56,6 +50,10 @@ public class CucumberDartUtil {
     DART_PARAMETER_TYPES = Collections.unmodifiableMap(dartParameterTypes);
 
     DEFAULT = new MapParameterTypeManager(STANDARD_PARAMETER_TYPES);
+
+    Map<String, String> dartDefaultParameterTypes = new HashMap<>(STANDARD_PARAMETER_TYPES);
+    dartDefaultParameterTypes.putAll(DART_PARAMETER_TYPES);
+    DART_DEFAULT = new MapParameterTypeManager(dartDefaultParameterTypes);
   }
 
   /**
@@ -63,27 +61,7 @@ public class CucumberDartUtil {
    * @see <a href="http://google.com">https://github.com/cucumber/cucumber/blob/master/cucumber-expressions/java/heuristics.adoc</a>
    */
   public static boolean isCucumberExpression(@NotNull String expression) {
-    Matcher m = BEGIN_ANCHOR.matcher(expression);
-    if (m.find()) {
-      return false;
-    }
-    m = END_ANCHOR.matcher(expression);
-    if (m.find()) {
-      return false;
-    }
-    m = SCRIPT_STYLE_REGEXP.matcher(expression);
-    if (m.find()) {
-      return false;
-    }
-    m = PARENTHESIS.matcher(expression);
-    if (m.find()) {
-      String insideParenthesis = m.group(1);
-      if (ALPHA.matcher(insideParenthesis).lookingAt()) {
-        return true;
-      }
-      return false;
-    }
-    return true;
+    return CucumberExpressionCompiler.isCucumberExpression(expression);
   }
 
   public static String getCucumberPendingExceptionFqn(@NotNull final PsiElement context) {
@@ -108,7 +86,7 @@ public class CucumberDartUtil {
   public static String findDartAnnotationText(DartMethodDeclaration dc) {
     return dc.getMetadataList().stream()
       .filter(CucumberDartUtil::isDartMetadataCucumberAnnotation)
-      .map(meta -> stripQuotes(refExpression(meta)))
+      .map(meta -> DartStringLiterals.decode(refExpression(meta)))
       .findFirst()
       .orElse(null);
   }
@@ -130,32 +108,6 @@ public class CucumberDartUtil {
   }
 
 
-  protected static String stripQuotes(String str) {
-    String original = str;
-    str = str.trim();
-    // strip off brackets
-    if (str.startsWith("(") && str.endsWith(")")) {
-      str = str.substring(1, str.length() - 1);
-    }
-    str = str.replace("\n", " ").replace("\r", "").trim();
-    System.out.println(String.format("`%s` vs `%s`", original, str));
-    // raw string?
-    if (str.startsWith("r\"") || str.startsWith("r'")) {
-      str = str.substring(2);
-    }
-    if (str.startsWith("\"") || str.startsWith("'")) {
-      str = str.substring(1);
-    }
-    if (str.endsWith("\"") || str.endsWith("'")) {
-      str = str.substring(0, str.length() - 1);
-    }
-
-    // undo the backslash that prevents escaping in Dart
-    str = str.replace("\\$", "$");
-
-    return str;
-  }
-
   @Nullable
   public static String findDartCucumberAnnotation(DartMethodDeclaration dc) {
     return dc.getMetadataList().stream().filter(CucumberDartUtil::isDartMetadataCucumberAnnotation)
@@ -164,18 +116,19 @@ public class CucumberDartUtil {
       .orElse(null);
   }
 
+  /**
+   * The parameter types of a module, the standard ones plus any custom ones found by {@link DartParameterTypeIndex}.
+   * They are cached per module until {@link DartParameterTypeTracker} or the project roots change.
+   */
   public static MapParameterTypeManager getAllParameterTypes(@NotNull Module module) {
     Project project = module.getProject();
-    PsiManager manager = PsiManager.getInstance(project);
-
-    VirtualFile projectDir = ProjectUtil.guessProjectDir(project);
-    PsiDirectory psiDirectory = projectDir != null ? manager.findDirectory(projectDir) : null;
-    if (psiDirectory != null) {
-      return CachedValuesManager.getCachedValue(psiDirectory, () ->
-        CachedValueProvider.Result.create(doGetAllParameterTypes(module), PsiModificationTracker.MODIFICATION_COUNT));
+    if (DumbService.isDumb(project)) {
+      return DART_DEFAULT;
     }
 
-    return DEFAULT;
+    return CachedValuesManager.getManager(project).getCachedValue(module, () ->
+      CachedValueProvider.Result.create(doGetAllParameterTypes(module), DartParameterTypeTracker.getInstance(project),
+        ProjectRootModificationTracker.getInstance(project)));
   }
 
   @NotNull
@@ -185,6 +138,15 @@ public class CucumberDartUtil {
     values.putAll(STANDARD_PARAMETER_TYPES);
     values.putAll(DART_PARAMETER_TYPES);
 
+    FileBasedIndex index = FileBasedIndex.getInstance();
+    GlobalSearchScope scope = module.getModuleWithDependenciesAndLibrariesScope(false);
+    for (String name : index.getAllKeys(DartParameterTypeIndex.INDEX_ID, module.getProject())) {
+      List<String> regexes = index.getValues(DartParameterTypeIndex.INDEX_ID, name, scope);
+      if (!regexes.isEmpty()) {
+        values.putIfAbsent(name, regexes.get(0));
+      }
+    }
+
     return new MapParameterTypeManager(values);
   }
 
@@ -0,0 +1,191 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.plugins.cucumber.ParameterTypeManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns cucumber expressions into regexes in a single pass: {name} parameters become the regex of their parameter
+ * type, (text) becomes optional, a/b between spaces becomes an alternation, \ escapes the next character and all
+ * other text is matched literally. The regex is anchored at both ends. Also tells cucumber expressions and regexes
+ * apart, following the cucumber heuristics, without running a regex itself.
+ */
+public class CucumberExpressionCompiler {
+  private static final String REGEX_SPECIAL = "\\^$.|?*+()[]{}";
+  // most patterns are asked about over and over, remember the answer up to this many of them
+  private static final int MAX_CLASSIFIED = 16384;
+  private static final Map<String, Boolean> CLASSIFIED = new ConcurrentHashMap<>();
+
+  private CucumberExpressionCompiler() {
+  }
+
+  /**
+   * Checks if the text should be considered as a cucumber expression or as a regex, see
+   * https://github.com/cucumber/cucumber/blob/master/cucumber-expressions/java/heuristics.adoc
+   */
+  public static boolean isCucumberExpression(@NotNull String text) {
+    Boolean cached = CLASSIFIED.get(text);
+    if (cached == null) {
+      if (CLASSIFIED.size() >= MAX_CLASSIFIED) {
+        CLASSIFIED.clear();
+      }
+      cached = classify(text);
+      CLASSIFIED.put(text, cached);
+    }
+    return cached;
+  }
+
+  private static boolean classify(@NotNull String text) {
+    int length = text.length();
+    if (length > 0 && (text.charAt(0) == '^' || text.charAt(length - 1) == '$')) {
+      return false;
+    }
+    if (length > 1 && text.charAt(0) == '/' && text.charAt(length - 1) == '/') {
+      return false;
+    }
+
+    // the first (...) with something in it decides: a regex group unless it starts with a letter
+    for (int i = 0; i < length; i++) {
+      if (text.charAt(i) != '(') {
+        continue;
+      }
+      int close = text.indexOf(')', i + 1);
+      if (close < 0) {
+        return true;
+      }
+      if (close > i + 1) {
+        char first = text.charAt(i + 1);
+        return (first >= 'a' && first <= 'z') || (first >= 'A' && first <= 'Z');
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the anchored regex of the expression, a parameter of an unknown type only matches its own text
+   */
+  @NotNull
+  public static String toRegex(@NotNull String expression, @NotNull ParameterTypeManager parameterTypes) {
+    StringBuilder regex = new StringBuilder(expression.length() + 16).append('^');
+    int length = expression.length();
+    int segmentStart = 0;
+    boolean alternation = false;
+    int depth = 0;
+    for (int i = 0; i <= length; i++) {
+      char c = i < length ? expression.charAt(i) : ' ';
+      // a trailing backslash escapes nothing, it is a literal and must not skip the end of the last segment
+      if (c == '\\' && i + 1 < length) {
+        i++;
+        continue;
+      }
+      if (c == '(' || c == '{') {
+        depth++;
+      } else if ((c == ')' || c == '}') && depth > 0) {
+        depth--;
+      } else if (c == '/' && depth == 0) {
+        alternation = true;
+      } else if (Character.isWhitespace(c) && depth == 0) {
+        // a segment ends at whitespace that is not inside an optional or a parameter
+        appendSegment(regex, expression, segmentStart, i, alternation, parameterTypes);
+        if (i < length) {
+          appendLiteral(regex, c);
+        }
+        segmentStart = i + 1;
+        alternation = false;
+      }
+    }
+    return regex.append('$').toString();
+  }
+
+  private static void appendSegment(@NotNull StringBuilder regex, @NotNull String expression, int start, int end, boolean alternation,
+                                    @NotNull ParameterTypeManager parameterTypes) {
+    if (!alternation) {
+      appendAtoms(regex, expression, start, end, parameterTypes);
+      return;
+    }
+
+    regex.append("(?:");
+    int alternativeStart = start;
+    int depth = 0;
+    for (int i = start; i <= end; i++) {
+      char c = i < end ? expression.charAt(i) : '/';
+      if (c == '\\' && i + 1 < end) {
+        i++;
+      } else if (c == '(' || c == '{') {
+        depth++;
+      } else if ((c == ')' || c == '}') && depth > 0) {
+        depth--;
+      } else if (c == '/' && depth == 0) {
+        if (alternativeStart > start) {
+          regex.append('|');
+        }
+        appendAtoms(regex, expression, alternativeStart, Math.min(i, end), parameterTypes);
+        alternativeStart = i + 1;
+      }
+    }
+    regex.append(')');
+  }
+
+  private static void appendAtoms(@NotNull StringBuilder regex, @NotNull String expression, int start, int end,
+                                  @NotNull ParameterTypeManager parameterTypes) {
+    for (int i = start; i < end; i++) {
+      char c = expression.charAt(i);
+      if (c == '\\' && i + 1 < end) {
+        appendLiteral(regex, expression.charAt(++i));
+      } else if (c == '(') {
+        int close = findClosing(expression, i, end, ')');
+        if (close < 0) {
+          appendLiteral(regex, c);
+          continue;
+        }
+        regex.append("(?:");
+        appendLiterals(regex, expression, i + 1, close);
+        regex.append(")?");
+        i = close;
+      } else if (c == '{') {
+        int close = findClosing(expression, i, end, '}');
+        String typeRegex = close < 0 ? null : parameterTypes.getParameterTypeValue(expression.substring(i + 1, close));
+        if (typeRegex == null) {
+          appendLiteral(regex, c);
+          continue;
+        }
+        regex.append('(').append(typeRegex).append(')');
+        i = close;
+      } else {
+        appendLiteral(regex, c);
+      }
+    }
+  }
+
+  // optionals can only hold text, anything special in them is taken literally
+  private static void appendLiterals(@NotNull StringBuilder regex, @NotNull String expression, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = expression.charAt(i);
+      if (c == '\\' && i + 1 < end) {
+        c = expression.charAt(++i);
+      }
+      appendLiteral(regex, c);
+    }
+  }
+
+  private static int findClosing(@NotNull String expression, int open, int end, char closing) {
+    for (int i = open + 1; i < end; i++) {
+      char c = expression.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == closing) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static void appendLiteral(@NotNull StringBuilder regex, char c) {
+    if (REGEX_SPECIAL.indexOf(c) >= 0) {
+      regex.append('\\');
+    }
+    regex.append(c);
+  }
+}
@@ -1,16 +1,20 @@
 // Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package dev.bluebiscuitdesign.cucumber.dart;
 
+import dev.bluebiscuitdesign.cucumber.dart.steps.reference.CucumberJavaAnnotationProvider;
 import com.intellij.lang.LighterAST;
 import com.intellij.lang.LighterASTNode;
+import com.intellij.openapi.util.Pair;
+import com.intellij.util.containers.Interner;
 import com.intellij.util.indexing.DataIndexer;
 import com.intellij.util.indexing.FileBasedIndexExtension;
 import com.intellij.util.indexing.FileContent;
 import com.intellij.util.indexing.PsiDependentFileContent;
 import com.intellij.util.io.BooleanDataDescriptor;
 import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
 import com.intellij.util.io.KeyDescriptor;
-import com.intellij.util.text.StringSearcher;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.DataInput;
@@ -18,8 +22,14 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.util.*;
 
-public abstract class CucumberStepIndex extends FileBasedIndexExtension<Boolean, List<Integer>> {
-    private static final List<String> STEP_KEYWORDS = Arrays.asList("Әмма", "Нәтиҗәдә", "Вә", "Әйтик", "Һәм", "Ләкин", "Әгәр",  "Und",
+/**
+ * The step definitions of each step file under the single key true. The Gherkin plugin asks for every definition a
+ * feature file can use at once (see {@link CucumberDartNIExtension#loadStepsFor}) and only then matches them, so a
+ * key per step text would not be looked up. Steps are narrowed down in memory by
+ * {@link dev.bluebiscuitdesign.cucumber.dart.steps.StepDefinitionMatcher} instead.
+ */
+public abstract class CucumberStepIndex extends FileBasedIndexExtension<Boolean, List<StepDefinitionIndexEntry>> {
+    static final List<String> STEP_KEYWORDS = Arrays.asList("Әмма", "Нәтиҗәдә", "Вә", "Әйтик", "Һәм", "Ләкин", "Әгәр",  "Und",
             "Angenommen", "Gegeben seien",  "Dann", "Aber", "Wenn", "Gegeben sei",
             "यदि", "तदा", "अगर", "और", "कदा", "परन्तु", "चूंकि", "जब", "किन्तु", "तथा", "पर",
             "तब", "Dados", "Entao", "Dada", "Então", "Mas", "Dadas", "Dado",
@@ -80,26 +90,25 @@ public abstract class CucumberStepIndex extends FileBasedIndexExtension<Boolean,
             "Þurh",  "Tha the", "Ama", "Fakat", "O zaman",  "Ve", "Eğer ki",
             "Diyelim ki");
 
+    private static final StepKeywordMatcher STEP_KEYWORD_MATCHER =
+            StepKeywordMatcher.create(CucumberJavaAnnotationProvider.STEP_MARKERS, STEP_KEYWORDS);
+
+    private volatile Pair<List<String>, BytePatternMatcher> myPackageMatcher;
+
     @NotNull
     @Override
-    public DataIndexer<Boolean, List<Integer>, FileContent> getIndexer() {
+    public DataIndexer<Boolean, List<StepDefinitionIndexEntry>, FileContent> getIndexer() {
         return inputData -> {
-            CharSequence text = inputData.getContentAsText();
-            boolean found = false;
-            for (String pkg : getPackagesToScan()) {
-                StringSearcher searcher = new StringSearcher(pkg, true, true);
-                if (isCucumberStepDefinitionFile(searcher, text)) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
+            // most Dart files are not step files, reject them before their content is decoded or parsed
+            if (!isCucumberStepDefinitionFile(inputData)) {
                 return Collections.emptyMap();
             }
 
+            CharSequence text = inputData.getContentAsText();
+
             LighterAST lighterAst = ((PsiDependentFileContent)inputData).getLighterAST();
-            List<Integer> result = getAllStepDefinitionCalls(lighterAst, text);
-            Map<Boolean, List<Integer>> resultMap = new HashMap<>();
+            List<StepDefinitionIndexEntry> result = getAllStepDefinitionCalls(lighterAst, text);
+            Map<Boolean, List<StepDefinitionIndexEntry>> resultMap = new HashMap<>();
             resultMap.put(true, result);
             return resultMap;
         };
@@ -113,7 +122,7 @@ public abstract class CucumberStepIndex extends FileBasedIndexExtension<Boolean,
 
     @NotNull
     @Override
-    public DataExternalizer<List<Integer>> getValueExternalizer() {
+    public DataExternalizer<List<StepDefinitionIndexEntry>> getValueExternalizer() {
         return DATA_EXTERNALIZER;
     }
 
@@ -129,12 +138,23 @@ public abstract class CucumberStepIndex extends FileBasedIndexExtension<Boolean,
 
     protected abstract String[] getPackagesToScan();
 
-    private static boolean isCucumberStepDefinitionFile(@NotNull StringSearcher searcher, @NotNull CharSequence text) {
-        return searcher.scan(text) > 0;
+    boolean isCucumberStepDefinitionFile(@NotNull FileContent inputData) {
+        return getPackageMatcher().containsAny(inputData.getContent());
+    }
+
+    @NotNull
+    private BytePatternMatcher getPackageMatcher() {
+        List<String> packages = Arrays.asList(getPackagesToScan());
+        Pair<List<String>, BytePatternMatcher> matcher = myPackageMatcher;
+        if (matcher == null || !matcher.first.equals(packages)) {
+            matcher = Pair.create(packages, BytePatternMatcher.create(packages));
+            myPackageMatcher = matcher;
+        }
+        return matcher.second;
     }
 
     protected static boolean isStepDefinitionCall(@NotNull LighterASTNode methodName, @NotNull CharSequence text) {
-        return STEP_KEYWORDS.contains(text.subSequence(methodName.getStartOffset(), methodName.getEndOffset()).toString());
+        return STEP_KEYWORD_MATCHER.matches(text, methodName.getStartOffset(), methodName.getEndOffset());
     }
 
     protected static boolean isStringLiteral(@NotNull LighterASTNode element, @NotNull CharSequence text) {
@@ -151,23 +171,44 @@ public abstract class CucumberStepIndex extends FileBasedIndexExtension<Boolean,
         return element.getEndOffset() - element.getStartOffset() > 0;
     }
 
-    protected abstract List<Integer> getAllStepDefinitionCalls(@NotNull LighterAST lighterAst, @NotNull CharSequence text);
+    protected abstract List<StepDefinitionIndexEntry> getAllStepDefinitionCalls(@NotNull LighterAST lighterAst, @NotNull CharSequence text);
+
+    private static final Interner<String> STRING_INTERNER = Interner.createWeakInterner();
 
-    private static final DataExternalizer<List<Integer>> DATA_EXTERNALIZER = new DataExternalizer<List<Integer>>() {
+    /**
+     * Entries are stored in file order, so each pattern offset is written as a variable length delta from the one
+     * before it and each method offset as a delta from its pattern, which keeps most offsets to one or two bytes.
+     */
+    static final DataExternalizer<List<StepDefinitionIndexEntry>> DATA_EXTERNALIZER = new DataExternalizer<List<StepDefinitionIndexEntry>>() {
         @Override
-        public void save(@NotNull DataOutput out, List<Integer> value) throws IOException {
-            out.writeInt(value.size());
-            for (Integer number : value) {
-                out.writeInt(number);
+        public void save(@NotNull DataOutput out, List<StepDefinitionIndexEntry> value) throws IOException {
+            DataInputOutputUtil.writeINT(out, value.size());
+            int previousOffset = 0;
+            for (StepDefinitionIndexEntry entry : value) {
+                IOUtil.writeUTF(out, entry.getAnnotation());
+                IOUtil.writeUTF(out, entry.getPattern());
+                IOUtil.writeUTF(out, entry.getMethodName());
+                DataInputOutputUtil.writeINT(out, entry.getPatternOffset() - previousOffset);
+                DataInputOutputUtil.writeINT(out, entry.getMethodOffset() - entry.getPatternOffset());
+                previousOffset = entry.getPatternOffset();
             }
         }
 
         @Override
-        public List<Integer> read(@NotNull DataInput in) throws IOException {
-            int size = in.readInt();
-            List<Integer> result = new ArrayList<>();
+        public List<StepDefinitionIndexEntry> read(@NotNull DataInput in) throws IOException {
+            int size = DataInputOutputUtil.readINT(in);
+            List<StepDefinitionIndexEntry> result = new ArrayList<>(size);
+            int previousOffset = 0;
             for (int i = 0; i < size; i++) {
-                result.add(in.readInt());
+                // only a handful of annotation names exist, don't keep a copy per entry
+                String annotation = IOUtil.readUTF(in).intern();
+                // every read makes new entries, share the strings with the ones already in memory
+                String pattern = STRING_INTERNER.intern(IOUtil.readUTF(in));
+                String methodName = STRING_INTERNER.intern(IOUtil.readUTF(in));
+                int patternOffset = previousOffset + DataInputOutputUtil.readINT(in);
+                int methodOffset = patternOffset + DataInputOutputUtil.readINT(in);
+                result.add(new StepDefinitionIndexEntry(annotation, pattern, methodName, methodOffset, patternOffset));
+                previousOffset = patternOffset;
             }
             return result;
         }
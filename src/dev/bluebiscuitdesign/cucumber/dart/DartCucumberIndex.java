@@ -2,75 +2,75 @@ package dev.bluebiscuitdesign.cucumber.dart;
 
 import com.intellij.lang.LighterAST;
 import com.intellij.lang.LighterASTNode;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.impl.source.tree.LightTreeUtil;
-import com.intellij.psi.impl.source.tree.RecursiveLighterASTNodeWalkingVisitor;
-import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.indexing.FileBasedIndex;
 import com.intellij.util.indexing.ID;
-import com.jetbrains.lang.dart.DartFileType;
 import com.jetbrains.lang.dart.DartTokenTypes;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class DartCucumberIndex extends CucumberStepIndex {
-    public static final ID<Boolean, List<Integer>> INDEX_ID = ID.create("dart.cucumber.step");
+    public static final ID<Boolean, List<StepDefinitionIndexEntry>> INDEX_ID = ID.create("dart.cucumber.step");
+    public static final String STEP_LIBRARIES_REGISTRY_KEY = "ogurets.step.libraries";
 
+    private static final String[] OGURETS_PACKAGES = {"package:ogurets/", "package:ogurets_flutter/"};
+
+    // libraries that re-export ogurets can be added through the registry, the index has to be rebuilt after that
     @Override
     protected String[] getPackagesToScan() {
-        return new String[] {"package:ogurets/ogurets.dart"};
+        List<String> packages = new ArrayList<>(Arrays.asList(OGURETS_PACKAGES));
+        for (String library : StringUtil.split(Registry.stringValue(STEP_LIBRARIES_REGISTRY_KEY), ",")) {
+            if (!library.trim().isEmpty()) {
+                packages.add(library.trim());
+            }
+        }
+        return ArrayUtil.toStringArray(packages);
     }
 
     @Override
-    protected List<Integer> getAllStepDefinitionCalls(@NotNull LighterAST lighterAst, @NotNull CharSequence text) {
-        List<Integer> result = new ArrayList<>();
+    protected List<StepDefinitionIndexEntry> getAllStepDefinitionCalls(@NotNull LighterAST lighterAst, @NotNull CharSequence text) {
+        List<StepDefinitionIndexEntry> result = new ArrayList<>();
 
-        RecursiveLighterASTNodeWalkingVisitor visitor = new RecursiveLighterASTNodeWalkingVisitor(lighterAst) {
-            @Override
-            public void visitNode(@NotNull LighterASTNode element) {
-                if (element.getTokenType() == DartTokenTypes.METADATA) {
-                    List<LighterASTNode> methodNameAndArgumentList = lighterAst.getChildren(element);
-                    if (methodNameAndArgumentList.size() < 3) {
-                        super.visitNode(element);
-                        return;
-                    }
-                    LighterASTNode methodNameNode = methodNameAndArgumentList.get(1);
-                    if (methodNameNode != null && isStepDefinitionCall(methodNameNode, text)) {
-                        LighterASTNode expressionList = methodNameAndArgumentList.get(2);
-                        if (expressionList.getTokenType() == DartTokenTypes.ARGUMENTS) {
-                            LighterASTNode argumentList = LightTreeUtil.firstChildOfType(lighterAst, expressionList, DartTokenTypes.ARGUMENT_LIST);
-                            if (argumentList != null) {
-                                LighterASTNode expressionParameter = LightTreeUtil.firstChildOfType(lighterAst, argumentList, DartTokenTypes.STRING_LITERAL_EXPRESSION);
-                                if (expressionParameter != null) {
-                                    result.add(expressionParameter.getStartOffset());
-                                }
-                            }
-                        }
-                    }
-                }
-                super.visitNode(element);
+        DartMetadataWalker.walk(lighterAst, (metadata, annotationName, arguments, methodName) -> {
+            if (arguments == null || !isStepDefinitionCall(annotationName, text)) {
+                return;
+            }
+            LighterASTNode argumentList = LightTreeUtil.firstChildOfType(lighterAst, arguments, DartTokenTypes.ARGUMENT_LIST);
+            LighterASTNode expressionParameter = argumentList != null
+                    ? LightTreeUtil.firstChildOfType(lighterAst, argumentList, DartTokenTypes.STRING_LITERAL_EXPRESSION) : null;
+            if (expressionParameter != null) {
+                result.add(new StepDefinitionIndexEntry(
+                        text.subSequence(annotationName.getStartOffset(), annotationName.getEndOffset()).toString(),
+                        DartStringLiterals.decode(text, expressionParameter.getStartOffset(), expressionParameter.getEndOffset()),
+                        text.subSequence(methodName.getStartOffset(), methodName.getEndOffset()).toString(),
+                        methodName.getStartOffset(),
+                        expressionParameter.getStartOffset()));
             }
-        };
-        visitor.visitNode(lighterAst.getRoot());
+        });
 
         return result;
     }
 
     @NotNull
     @Override
-    public ID<Boolean, List<Integer>> getName() {
+    public ID<Boolean, List<StepDefinitionIndexEntry>> getName() {
         return INDEX_ID;
     }
 
     @Override
     public int getVersion() {
-        return 2;
+        return 7;
     }
 
     @NotNull
     @Override
     public FileBasedIndex.InputFilter getInputFilter() {
-        return new DefaultFileTypeSpecificInputFilter(DartFileType.INSTANCE);
+        return new DartIndexInputFilter();
     }
 }
@@ -0,0 +1,192 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import dev.bluebiscuitdesign.cucumber.dart.steps.reference.CucumberJavaAnnotationProvider;
+import com.intellij.lang.LighterAST;
+import com.intellij.lang.LighterASTNode;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.impl.source.tree.LightTreeUtil;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.indexing.PsiDependentFileContent;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.lang.dart.DartTokenTypes;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The @Before and @After hooks of each file, keyed by the annotation name, so hooks can be listed without
+ * parsing the step classes they live in.
+ */
+public class DartHookIndex extends FileBasedIndexExtension<String, List<HookIndexEntry>> {
+  public static final ID<String, List<HookIndexEntry>> INDEX_ID = ID.create("dart.cucumber.hook");
+
+  private static final StepKeywordMatcher HOOK_MATCHER = StepKeywordMatcher.create(CucumberJavaAnnotationProvider.HOOK_MARKERS, null);
+
+  private final DartCucumberIndex myStepIndex = new DartCucumberIndex();
+
+  /**
+   * @return the hooks with the given annotation in the scope, sorted by their order argument
+   */
+  @NotNull
+  public static List<Pair<VirtualFile, HookIndexEntry>> findHooks(@NotNull String annotation, @NotNull GlobalSearchScope scope) {
+    List<Pair<VirtualFile, HookIndexEntry>> result = new ArrayList<>();
+    FileBasedIndex.getInstance().processValues(INDEX_ID, annotation, null, (file, value) -> {
+      ProgressManager.checkCanceled();
+      for (HookIndexEntry entry : value) {
+        result.add(Pair.create(file, entry));
+      }
+      return true;
+    }, scope);
+
+    result.sort(Comparator.<Pair<VirtualFile, HookIndexEntry>>comparingInt(hook -> hook.second.getOrder())
+                  .thenComparing(hook -> hook.first.getPath())
+                  .thenComparingInt(hook -> hook.second.getMethodOffset()));
+    return result;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, List<HookIndexEntry>, FileContent> getIndexer() {
+    return inputData -> {
+      if (!myStepIndex.isCucumberStepDefinitionFile(inputData)) {
+        return Collections.emptyMap();
+      }
+
+      CharSequence text = inputData.getContentAsText();
+      LighterAST lighterAst = ((PsiDependentFileContent)inputData).getLighterAST();
+      Map<String, List<HookIndexEntry>> result = new HashMap<>();
+      DartMetadataWalker.walk(lighterAst, (metadata, annotationName, arguments, methodName) -> {
+        if (HOOK_MATCHER.matches(text, annotationName.getStartOffset(), annotationName.getEndOffset())) {
+          HookIndexEntry entry = createEntry(lighterAst, text, annotationName, arguments, methodName);
+          result.computeIfAbsent(entry.getAnnotation(), k -> new ArrayList<>()).add(entry);
+        }
+      });
+      return result;
+    };
+  }
+
+  @NotNull
+  private static HookIndexEntry createEntry(@NotNull LighterAST lighterAst, @NotNull CharSequence text, @NotNull LighterASTNode annotationName,
+                                           @Nullable LighterASTNode arguments, @NotNull LighterASTNode methodName) {
+    int order = 0;
+    String tags = null;
+
+    LighterASTNode argumentList = arguments != null ? LightTreeUtil.firstChildOfType(lighterAst, arguments, DartTokenTypes.ARGUMENT_LIST) : null;
+    if (argumentList != null) {
+      for (LighterASTNode argument : LightTreeUtil.getChildrenOfType(lighterAst, argumentList, DartTokenTypes.NAMED_ARGUMENT)) {
+        String argumentText = text.subSequence(argument.getStartOffset(), argument.getEndOffset()).toString();
+        int colon = argumentText.indexOf(':');
+        if (colon < 0) {
+          continue;
+        }
+        String name = argumentText.substring(0, colon).trim();
+        String value = argumentText.substring(colon + 1).trim();
+        if (name.equals("order")) {
+          order = parseOrder(value);
+        } else if ((name.equals("tag") || name.equals("tags")) && !value.equals("null")) {
+          tags = DartStringLiterals.decode(value);
+        }
+      }
+    }
+
+    return new HookIndexEntry(text.subSequence(annotationName.getStartOffset(), annotationName.getEndOffset()).toString(),
+                              text.subSequence(methodName.getStartOffset(), methodName.getEndOffset()).toString(),
+                              methodName.getStartOffset(), order, tags);
+  }
+
+  // the order may also be a constant we can't evaluate here, those hooks are treated as unordered
+  private static int parseOrder(@NotNull String value) {
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  @NotNull
+  @Override
+  public ID<String, List<HookIndexEntry>> getName() {
+    return INDEX_ID;
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<List<HookIndexEntry>> getValueExternalizer() {
+    return DATA_EXTERNALIZER;
+  }
+
+  // bump when the indexer, the entry format or the step file prefilter it shares with the step index changes
+  @Override
+  public int getVersion() {
+    return 1;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DartIndexInputFilter();
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  private static final DataExternalizer<List<HookIndexEntry>> DATA_EXTERNALIZER = new DataExternalizer<List<HookIndexEntry>>() {
+    @Override
+    public void save(@NotNull DataOutput out, List<HookIndexEntry> value) throws IOException {
+      DataInputOutputUtil.writeINT(out, value.size());
+      for (HookIndexEntry entry : value) {
+        IOUtil.writeUTF(out, entry.getAnnotation());
+        IOUtil.writeUTF(out, entry.getMethodName());
+        DataInputOutputUtil.writeINT(out, entry.getMethodOffset());
+        DataInputOutputUtil.writeINT(out, entry.getOrder());
+        out.writeBoolean(entry.getTags() != null);
+        if (entry.getTags() != null) {
+          IOUtil.writeUTF(out, entry.getTags());
+        }
+      }
+    }
+
+    @Override
+    public List<HookIndexEntry> read(@NotNull DataInput in) throws IOException {
+      int size = DataInputOutputUtil.readINT(in);
+      List<HookIndexEntry> result = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        String annotation = IOUtil.readUTF(in).intern();
+        String methodName = IOUtil.readUTF(in);
+        int methodOffset = DataInputOutputUtil.readINT(in);
+        int order = DataInputOutputUtil.readINT(in);
+        String tags = in.readBoolean() ? IOUtil.readUTF(in) : null;
+        result.add(new HookIndexEntry(annotation, methodName, methodOffset, order, tags));
+      }
+      return result;
+    }
+  };
+}
@@ -0,0 +1,89 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.codeInsight.daemon.RelatedItemLineMarkerInfo;
+import com.intellij.codeInsight.daemon.RelatedItemLineMarkerProvider;
+import com.intellij.codeInsight.navigation.NavigationGutterIconBuilder;
+import com.intellij.lang.ASTNode;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.NotNullLazyValue;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.lang.dart.psi.DartMethodDeclaration;
+import icons.CucumberJavaIcons;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.plugins.cucumber.psi.GherkinTokenTypes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Shows the @Before and @After hooks that run around the scenarios of a feature file in the gutter of its
+ * Feature keyword. Tagged hooks are listed with their tag expression, they only run for matching scenarios.
+ */
+public class DartHookLineMarkerProvider extends RelatedItemLineMarkerProvider {
+  @Override
+  protected void collectNavigationMarkers(@NotNull PsiElement element, @NotNull Collection<? super RelatedItemLineMarkerInfo<?>> result) {
+    ASTNode node = element.getNode();
+    if (node == null || node.getElementType() != GherkinTokenTypes.FEATURE_KEYWORD) {
+      return;
+    }
+
+    Project project = element.getProject();
+    PsiFile featureFile = element.getContainingFile();
+    GlobalSearchScope scope = CucumberDartNIExtension.getStepScope(project, DartPackageScope.findPubspec(project, featureFile));
+    List<Pair<VirtualFile, HookIndexEntry>> hooks = new ArrayList<>(DartHookIndex.findHooks("Before", scope));
+    hooks.addAll(DartHookIndex.findHooks("After", scope));
+    if (hooks.isEmpty()) {
+      return;
+    }
+
+    NavigationGutterIconBuilder<PsiElement> builder = NavigationGutterIconBuilder.create(CucumberJavaIcons.DartTest)
+      .setTargets(NotNullLazyValue.createValue(() -> findMethods(project, hooks)))
+      .setPopupTitle("Hooks")
+      .setTooltipText(getTooltip(hooks));
+    result.add(builder.createLineMarkerInfo(element));
+  }
+
+  @NotNull
+  private static String getTooltip(@NotNull List<Pair<VirtualFile, HookIndexEntry>> hooks) {
+    StringBuilder tooltip = new StringBuilder("<html>");
+    for (Pair<VirtualFile, HookIndexEntry> hook : hooks) {
+      HookIndexEntry entry = hook.second;
+      tooltip.append('@').append(entry.getAnnotation()).append(' ')
+        .append(StringUtil.escapeXmlEntities(entry.getMethodName()))
+        .append(" (").append(StringUtil.escapeXmlEntities(hook.first.getName()));
+      if (entry.getOrder() != 0) {
+        tooltip.append(", order ").append(entry.getOrder());
+      }
+      if (entry.getTags() != null) {
+        tooltip.append(", ").append(StringUtil.escapeXmlEntities(entry.getTags()));
+      }
+      tooltip.append(")<br>");
+    }
+    return tooltip.append("</html>").toString();
+  }
+
+  // the methods are only resolved once the popup is opened, the files stay unparsed until then
+  @NotNull
+  private static List<PsiElement> findMethods(@NotNull Project project, @NotNull List<Pair<VirtualFile, HookIndexEntry>> hooks) {
+    List<PsiElement> result = new ArrayList<>();
+    PsiManager psiManager = PsiManager.getInstance(project);
+    for (Pair<VirtualFile, HookIndexEntry> hook : hooks) {
+      PsiFile file = hook.first.isValid() ? psiManager.findFile(hook.first) : null;
+      DartMethodDeclaration method = file != null
+                                     ? PsiTreeUtil.getParentOfType(file.findElementAt(hook.second.getMethodOffset()), DartMethodDeclaration.class)
+                                     : null;
+      if (method != null) {
+        result.add(method);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,97 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.components.JBTextArea;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.ui.FormBuilder;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Edits the {@link DartIndexSettings} globs, one per line, and rebuilds the Dart indexes when they change.
+ */
+public class DartIndexConfigurable implements Configurable {
+  private static final List<ID<?, ?>> FILTERED_INDEXES = Arrays.asList(DartCucumberIndex.INDEX_ID, DartHookIndex.INDEX_ID,
+    DartParameterTypeIndex.INDEX_ID, DartPublicClassIndex.INDEX_ID);
+
+  private JBTextArea myIncludes;
+  private JBTextArea myExcludes;
+
+  @Nls
+  @Override
+  public String getDisplayName() {
+    return "Ogurets Indexing";
+  }
+
+  @Nullable
+  @Override
+  public JComponent createComponent() {
+    myIncludes = new JBTextArea(5, 40);
+    myExcludes = new JBTextArea(5, 40);
+    return FormBuilder.createFormBuilder()
+      .addLabeledComponent("Always index (one Ant style glob per line, e.g. **/build/steps/**):", new JBScrollPane(myIncludes), true)
+      .addLabeledComponent("Never index (one Ant style glob per line, e.g. **/lib/generated/**):", new JBScrollPane(myExcludes), true)
+      .addComponentFillVertically(new JPanel(), 0)
+      .getPanel();
+  }
+
+  @Override
+  public boolean isModified() {
+    return !currentState().equals(DartIndexSettings.getInstance().getState());
+  }
+
+  @Override
+  public void apply() {
+    DartIndexSettings settings = DartIndexSettings.getInstance();
+    DartIndexSettings.IndexState state = currentState();
+    if (state.equals(settings.getState())) {
+      return;
+    }
+    settings.loadState(state);
+    // the input filter is only asked again for files that are reindexed
+    for (ID<?, ?> index : FILTERED_INDEXES) {
+      FileBasedIndex.getInstance().requestRebuild(index);
+    }
+  }
+
+  @Override
+  public void reset() {
+    DartIndexSettings.IndexState state = DartIndexSettings.getInstance().getState();
+    myIncludes.setText(StringUtil.join(state.includes, "\n"));
+    myExcludes.setText(StringUtil.join(state.excludes, "\n"));
+  }
+
+  @Override
+  public void disposeUIResources() {
+    myIncludes = null;
+    myExcludes = null;
+  }
+
+  @NotNull
+  private DartIndexSettings.IndexState currentState() {
+    DartIndexSettings.IndexState state = new DartIndexSettings.IndexState();
+    state.includes = lines(myIncludes.getText());
+    state.excludes = lines(myExcludes.getText());
+    return state;
+  }
+
+  @NotNull
+  private static List<String> lines(@NotNull String text) {
+    List<String> result = new ArrayList<>();
+    for (String line : StringUtil.splitByLines(text)) {
+      if (!StringUtil.isEmptyOrSpaces(line)) {
+        result.add(line.trim());
+      }
+    }
+    return result;
+  }
+}
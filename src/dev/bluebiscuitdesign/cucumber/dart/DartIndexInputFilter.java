@@ -0,0 +1,68 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.jetbrains.lang.dart.DartFileType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps build output and generated code away from the Dart indexes, by path alone so the content of a skipped file
+ * is never loaded. Skipped are files under .dart_tool, under the build directory of a package, generated by
+ * build_runner and the runners this plugin generates, unless {@link DartIndexSettings} says otherwise.
+ */
+public class DartIndexInputFilter extends DefaultFileTypeSpecificInputFilter {
+  private static final List<String> GENERATED_SUFFIXES = Arrays.asList(".g.dart", ".freezed.dart");
+  private static final Set<String> GENERATED_RUNNERS =
+    Collections.unmodifiableSet(new HashSet<>(Arrays.asList("ogurets_run.dart", "ogurets_flutter.dart", "ogurets_flutter_test.dart")));
+
+  public DartIndexInputFilter() {
+    super(DartFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean acceptInput(@NotNull VirtualFile file) {
+    return super.acceptInput(file) && isIndexed(file);
+  }
+
+  /**
+   * @return true if the Dart indexes look at the file
+   */
+  public static boolean isIndexed(@NotNull VirtualFile file) {
+    DartIndexSettings settings = DartIndexSettings.getInstance();
+    String path = file.getPath();
+    if (settings.isIncluded(path)) {
+      return true;
+    }
+    return !settings.isExcluded(path) && !isGenerated(file);
+  }
+
+  private static boolean isGenerated(@NotNull VirtualFile file) {
+    String name = file.getName();
+    if (GENERATED_RUNNERS.contains(name)) {
+      return true;
+    }
+    for (String suffix : GENERATED_SUFFIXES) {
+      if (name.endsWith(suffix)) {
+        return true;
+      }
+    }
+
+    for (VirtualFile dir = file.getParent(); dir != null; dir = dir.getParent()) {
+      String dirName = dir.getName();
+      if (".dart_tool".equals(dirName)) {
+        return true;
+      }
+      VirtualFile packageDir = dir.getParent();
+      if ("build".equals(dirName) && packageDir != null && packageDir.findChild("pubspec.yaml") != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
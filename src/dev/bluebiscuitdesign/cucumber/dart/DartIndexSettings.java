@@ -0,0 +1,98 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Extra Ant style globs for the Dart files the step indexes should (or should not) look at, on top of the generated
+ * code {@link DartIndexInputFilter} skips anyway. The indexes are shared by every open project, so these are
+ * application settings. The globs are matched against the whole path of a file, so they usually start with **&#47;.
+ */
+@State(name = "OguretsIndexSettings", storages = @Storage("ogurets.xml"))
+public class DartIndexSettings implements PersistentStateComponent<DartIndexSettings.IndexState> {
+  private IndexState myState = new IndexState();
+  private volatile List<Pattern> myIncludes = new ArrayList<>();
+  private volatile List<Pattern> myExcludes = new ArrayList<>();
+
+  public static DartIndexSettings getInstance() {
+    return ApplicationManager.getApplication().getService(DartIndexSettings.class);
+  }
+
+  @NotNull
+  @Override
+  public IndexState getState() {
+    return myState;
+  }
+
+  @Override
+  public void loadState(@NotNull IndexState state) {
+    myState = state;
+    myIncludes = compile(state.includes);
+    myExcludes = compile(state.excludes);
+  }
+
+  /**
+   * @return true if the path matches one of the include globs, which wins over everything that would exclude it
+   */
+  public boolean isIncluded(@NotNull String path) {
+    return matchesAny(myIncludes, path);
+  }
+
+  public boolean isExcluded(@NotNull String path) {
+    return matchesAny(myExcludes, path);
+  }
+
+  private static boolean matchesAny(@NotNull List<Pattern> patterns, @NotNull String path) {
+    for (Pattern pattern : patterns) {
+      if (pattern.matcher(path).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @NotNull
+  private static List<Pattern> compile(@NotNull List<String> globs) {
+    List<Pattern> result = new ArrayList<>();
+    for (String glob : globs) {
+      if (StringUtil.isEmptyOrSpaces(glob)) {
+        continue;
+      }
+      try {
+        result.add(Pattern.compile(FileUtil.convertAntToRegexp(glob.trim())));
+      } catch (PatternSyntaxException ignored) {
+        // a broken glob matches nothing
+      }
+    }
+    return result;
+  }
+
+  public static class IndexState {
+    public List<String> includes = new ArrayList<>();
+    public List<String> excludes = new ArrayList<>();
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      IndexState state = (IndexState)o;
+      return includes.equals(state.includes) && excludes.equals(state.excludes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(includes, excludes);
+    }
+  }
+}
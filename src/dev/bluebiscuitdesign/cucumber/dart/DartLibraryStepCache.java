@@ -0,0 +1,257 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import dev.bluebiscuitdesign.cucumber.dart.steps.DartAnnotatedStepDefinition;
+import dev.bluebiscuitdesign.cucumber.dart.steps.StepDefinitionMatcher;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.project.ProjectManagerListener;
+import com.intellij.openapi.roots.OrderEnumerator;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.jetbrains.lang.dart.sdk.DartSdk;
+import com.jetbrains.lang.dart.util.DartUrlResolver;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.plugins.cucumber.steps.AbstractStepDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The step definitions of the libraries a project depends on, e.g. shared step packages. A package in the pub
+ * cache never changes once it is there, its directory name carries its version, and neither does a given version of
+ * the Dart SDK, so what the index says about them is shared by every project for as long as one of the open
+ * projects uses them. Other libraries are read from the index again when the project's libraries or the index change.
+ * A feature file only gets the definitions of the libraries its own package depends on.
+ */
+public class DartLibraryStepCache implements Disposable {
+  private static final Logger LOG = Logger.getInstance(DartLibraryStepCache.class);
+
+  // package key (see getPackageKey) to the entries of its library root, keyed by their path relative to the package directory
+  private final Map<String, Map<String, List<StepDefinitionIndexEntry>>> myPackages = new ConcurrentHashMap<>();
+  // the package keys each open project used when its definitions were last loaded
+  private final Map<Project, Set<String>> myProjectPackages = ContainerUtil.createConcurrentWeakMap();
+  private final AtomicLong myHits = new AtomicLong();
+  private final AtomicLong myMisses = new AtomicLong();
+  private final AtomicLong myEvictions = new AtomicLong();
+
+  public DartLibraryStepCache() {
+    ApplicationManager.getApplication().getMessageBus().connect(this).subscribe(ProjectManager.TOPIC, new ProjectManagerListener() {
+      @Override
+      public void projectClosed(@NotNull Project project) {
+        myProjectPackages.remove(project);
+        evictUnusedPackages();
+      }
+    });
+  }
+
+  public static DartLibraryStepCache getInstance() {
+    return ApplicationManager.getApplication().getService(DartLibraryStepCache.class);
+  }
+
+  /**
+   * @param pubspec the pubspec.yaml of the package asking, only the libraries it depends on are returned. Null for
+   * the definitions of every library of the project.
+   * @return the step definitions of the libraries, must be called in smart mode
+   */
+  @NotNull
+  public List<AbstractStepDefinition> getStepDefinitions(@NotNull Project project, @Nullable VirtualFile pubspec) {
+    LibrarySteps steps = CachedValuesManager.getManager(project).getCachedValue(project, () -> {
+      List<Object> dependencies = new ArrayList<>();
+      dependencies.add(ProjectRootModificationTracker.getInstance(project));
+      LibrarySteps libraries = loadStepDefinitions(project, dependencies);
+      return CachedValueProvider.Result.create(libraries, dependencies.toArray());
+    });
+    if (pubspec == null) {
+      return steps.myAll;
+    }
+    // the Dart plugin updates the library roots when the resolved packages change, which drops these along with the rest
+    return steps.myByPubspec.computeIfAbsent(pubspec, file -> steps.getDependencySteps(project, file));
+  }
+
+  @NotNull
+  private LibrarySteps loadStepDefinitions(@NotNull Project project, @NotNull List<Object> dependencies) {
+    List<AbstractStepDefinition> result = new ArrayList<>();
+    List<Pair<VirtualFile, List<AbstractStepDefinition>>> libraries = new ArrayList<>();
+    PsiManager psiManager = PsiManager.getInstance(project);
+    ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+    DartSdk sdk = DartSdk.getDartSdk(project);
+    Set<String> packageKeys = new HashSet<>();
+    boolean mutable = false;
+    // the roots of a Dart package library are the lib folders of the packages
+    for (VirtualFile libRoot : OrderEnumerator.orderEntries(project).librariesOnly().getClassesRoots()) {
+      ProgressManager.checkCanceled();
+      VirtualFile packageDir = libRoot.getParent();
+      // packages in the project are found by the project's own step search
+      if (packageDir == null || !libRoot.isDirectory() || fileIndex.isInContent(libRoot)) {
+        continue;
+      }
+
+      String packageKey = getPackageKey(libRoot, packageDir, sdk);
+      mutable |= packageKey == null;
+      Map<String, List<StepDefinitionIndexEntry>> entries;
+      if (packageKey != null) {
+        packageKeys.add(packageKey);
+        entries = getImmutablePackageEntries(project, libRoot, packageDir, packageKey);
+      } else {
+        entries = readEntries(project, libRoot, packageDir);
+      }
+      VirtualFile stepFile = null;
+      List<AbstractStepDefinition> definitions = new ArrayList<>();
+      for (Map.Entry<String, List<StepDefinitionIndexEntry>> fileEntries : entries.entrySet()) {
+        VirtualFile file = packageDir.findFileByRelativePath(fileEntries.getKey());
+        PsiFile psiFile = file != null ? psiManager.findFile(file) : null;
+        if (psiFile == null) {
+          continue;
+        }
+        stepFile = file;
+        for (StepDefinitionIndexEntry entry : fileEntries.getValue()) {
+          definitions.add(new DartAnnotatedStepDefinition(psiFile, entry));
+        }
+      }
+      if (stepFile != null) {
+        libraries.add(Pair.create(stepFile, definitions));
+        result.addAll(definitions);
+      }
+    }
+
+    // packages the project no longer uses, e.g. after an upgrade, are dropped unless another project uses them
+    myProjectPackages.put(project, packageKeys);
+    evictUnusedPackages();
+
+    if (mutable) {
+      dependencies.add((ModificationTracker)() -> FileBasedIndex.getInstance().getIndexModificationStamp(DartCucumberIndex.INDEX_ID, project));
+    }
+    StepDefinitionMatcher.attach(result, DartParameterTypeTracker.getInstance(project), ProjectRootModificationTracker.getInstance(project));
+    return new LibrarySteps(libraries, Collections.unmodifiableList(result));
+  }
+
+  @NotNull
+  private Map<String, List<StepDefinitionIndexEntry>> getImmutablePackageEntries(@NotNull Project project, @NotNull VirtualFile libRoot,
+                                                                                 @NotNull VirtualFile packageDir, @NotNull String packageKey) {
+    Map<String, List<StepDefinitionIndexEntry>> entries = myPackages.get(packageKey);
+    if (entries != null) {
+      myHits.incrementAndGet();
+      return entries;
+    }
+
+    myMisses.incrementAndGet();
+    // packages without steps are remembered too, they are the vast majority
+    entries = readEntries(project, libRoot, packageDir);
+    myPackages.put(packageKey, entries);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(String.format("Read %d step files of %s: %s", entries.size(), packageDir.getPath(), getStatistics()));
+    }
+    return entries;
+  }
+
+  @NotNull
+  private static Map<String, List<StepDefinitionIndexEntry>> readEntries(@NotNull Project project, @NotNull VirtualFile libRoot,
+                                                                         @NotNull VirtualFile packageDir) {
+    Map<String, List<StepDefinitionIndexEntry>> result = new TreeMap<>();
+    FileBasedIndex.getInstance().processValues(DartCucumberIndex.INDEX_ID, true, null,
+      (file, entries) -> {
+        String relativePath = VfsUtilCore.getRelativePath(file, packageDir);
+        if (relativePath != null) {
+          result.put(relativePath, entries);
+        }
+        return true;
+      }, GlobalSearchScopesCore.directoryScope(project, libRoot, true));
+    return result.isEmpty() ? Collections.emptyMap() : result;
+  }
+
+  private void evictUnusedPackages() {
+    Set<String> used = new HashSet<>();
+    for (Set<String> packageKeys : myProjectPackages.values()) {
+      used.addAll(packageKeys);
+    }
+    for (String packageKey : myPackages.keySet()) {
+      if (!used.contains(packageKey) && myPackages.remove(packageKey) != null) {
+        myEvictions.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * @return the key the library root of a package that never changes is cached under, or null if the package may
+   * change in place. The SDK has many library roots and is upgraded in place, so its keys include its version.
+   */
+  @Nullable
+  private static String getPackageKey(@NotNull VirtualFile libRoot, @NotNull VirtualFile packageDir, @Nullable DartSdk sdk) {
+    if (sdk != null && FileUtil.startsWith(packageDir.getPath(), FileUtil.toSystemIndependentName(sdk.getHomePath()))) {
+      return libRoot.getPath() + "@" + sdk.getVersion();
+    }
+    return isInPubCache(packageDir) ? libRoot.getPath() : null;
+  }
+
+  /**
+   * @return true for the packages pub downloaded, hosted as well as git ones, which are never modified in place
+   */
+  static boolean isInPubCache(@NotNull VirtualFile packageDir) {
+    String path = packageDir.getPath();
+    String pubCache = System.getenv("PUB_CACHE");
+    if (pubCache != null && FileUtil.startsWith(path, FileUtil.toSystemIndependentName(pubCache))) {
+      return true;
+    }
+    return path.contains("/.pub-cache/") || path.contains("/Pub/Cache/");
+  }
+
+  @NotNull
+  public String getStatistics() {
+    return String.format("%d packages, %d hits, %d misses, %d evictions", myPackages.size(), myHits.get(), myMisses.get(),
+      myEvictions.get());
+  }
+
+  @Override
+  public void dispose() {
+  }
+
+  private static class LibrarySteps {
+    // a step file of each library with steps, next to the definitions of the whole library
+    private final List<Pair<VirtualFile, List<AbstractStepDefinition>>> myLibraries;
+    private final List<AbstractStepDefinition> myAll;
+    // pubspec.yaml to the definitions of the libraries that package depends on
+    private final Map<VirtualFile, List<AbstractStepDefinition>> myByPubspec = new ConcurrentHashMap<>();
+
+    private LibrarySteps(@NotNull List<Pair<VirtualFile, List<AbstractStepDefinition>>> libraries, @NotNull List<AbstractStepDefinition> all) {
+      myLibraries = libraries;
+      myAll = all;
+    }
+
+    // a file only has a package: URL for a package if that package is among the ones the pubspec resolves to
+    @NotNull
+    private List<AbstractStepDefinition> getDependencySteps(@NotNull Project project, @NotNull VirtualFile pubspec) {
+      DartUrlResolver resolver = DartUrlResolver.getInstance(project, pubspec);
+      List<AbstractStepDefinition> result = new ArrayList<>();
+      for (Pair<VirtualFile, List<AbstractStepDefinition>> library : myLibraries) {
+        if (resolver.getDartUrlForFile(library.first).startsWith("package:")) {
+          result.addAll(library.second);
+        }
+      }
+      return result.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(result);
+    }
+  }
+}
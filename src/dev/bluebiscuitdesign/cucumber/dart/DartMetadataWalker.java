@@ -0,0 +1,88 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.lang.LighterAST;
+import com.intellij.lang.LighterASTNode;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.TokenSet;
+import com.jetbrains.lang.dart.DartTokenTypes;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds the annotations on methods in the LighterAST of a Dart file, shared by the indexers for step definitions
+ * and hooks. Annotated methods only live in class like declarations, so the walk goes no deeper than the members of
+ * those and never looks inside a method past its name: bodies, closures and expressions are skipped entirely.
+ */
+final class DartMetadataWalker {
+  interface MethodMetadataProcessor {
+    /**
+     * @param annotationName the reference to the annotation, e.g. Given
+     * @param arguments the annotation's arguments, or null if it has none
+     * @param methodName the name of the annotated method
+     */
+    void process(@NotNull LighterASTNode metadata, @NotNull LighterASTNode annotationName,
+                 @Nullable LighterASTNode arguments, @NotNull LighterASTNode methodName);
+  }
+
+  // the nodes between the file and its methods
+  private static final TokenSet CONTAINERS = TokenSet.create(DartTokenTypes.CLASS_DEFINITION, DartTokenTypes.MIXIN_DECLARATION,
+    DartTokenTypes.EXTENSION_DECLARATION, DartTokenTypes.CLASS_BODY, DartTokenTypes.CLASS_MEMBERS);
+
+  private DartMetadataWalker() {
+  }
+
+  static void walk(@NotNull LighterAST lighterAst, @NotNull MethodMetadataProcessor processor) {
+    // children go on the stack last to first, so methods are reported in the order they appear in the file
+    Deque<LighterASTNode> stack = new ArrayDeque<>();
+    pushChildren(lighterAst, lighterAst.getRoot(), stack);
+    while (!stack.isEmpty()) {
+      LighterASTNode node = stack.pop();
+      IElementType type = node.getTokenType();
+      if (type == DartTokenTypes.METHOD_DECLARATION) {
+        processMethod(lighterAst, node, processor);
+      } else if (CONTAINERS.contains(type)) {
+        pushChildren(lighterAst, node, stack);
+      }
+    }
+  }
+
+  private static void pushChildren(@NotNull LighterAST lighterAst, @NotNull LighterASTNode node, @NotNull Deque<LighterASTNode> stack) {
+    List<LighterASTNode> children = lighterAst.getChildren(node);
+    for (int i = children.size() - 1; i >= 0; i--) {
+      stack.push(children.get(i));
+    }
+  }
+
+  private static void processMethod(@NotNull LighterAST lighterAst, @NotNull LighterASTNode method,
+                                    @NotNull MethodMetadataProcessor processor) {
+    // the metadata comes before the name, nothing after it is of interest
+    List<LighterASTNode> metadata = new ArrayList<>();
+    for (LighterASTNode child : lighterAst.getChildren(method)) {
+      IElementType type = child.getTokenType();
+      if (type == DartTokenTypes.METADATA) {
+        metadata.add(child);
+      } else if (type == DartTokenTypes.COMPONENT_NAME) {
+        for (LighterASTNode annotation : metadata) {
+          processMetadata(lighterAst, annotation, child, processor);
+        }
+        return;
+      }
+    }
+  }
+
+  private static void processMetadata(@NotNull LighterAST lighterAst, @NotNull LighterASTNode metadata,
+                                      @NotNull LighterASTNode methodName, @NotNull MethodMetadataProcessor processor) {
+    List<LighterASTNode> children = lighterAst.getChildren(metadata);
+    if (children.size() < 2) {
+      return;
+    }
+
+    LighterASTNode arguments = children.size() > 2 && children.get(2).getTokenType() == DartTokenTypes.ARGUMENTS ? children.get(2) : null;
+    processor.process(metadata, children.get(1), arguments, methodName);
+  }
+}
@@ -0,0 +1,77 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.jetbrains.lang.dart.util.DartUrlResolver;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The files a feature file can take its step definitions from: the pub package it belongs to and the packages in
+ * the project it depends on by path. This keeps the packages of a monorepo from matching each other's steps.
+ */
+public class DartPackageScope {
+  private DartPackageScope() {
+  }
+
+  /**
+   * @return the pubspec.yaml of the package the file belongs to, or null if it is not in one
+   */
+  @Nullable
+  public static VirtualFile findPubspec(@NotNull Project project, @NotNull PsiFile file) {
+    VirtualFile virtualFile = file.getOriginalFile().getVirtualFile();
+    return virtualFile == null ? null : DartUrlResolver.getInstance(project, virtualFile).getPubspecYamlFile();
+  }
+
+  /**
+   * @return the scope of the package with the given pubspec.yaml, cached until the pubspec, the resolved packages
+   * or the project structure change
+   */
+  @NotNull
+  public static GlobalSearchScope getScope(@NotNull Project project, @NotNull VirtualFile pubspec) {
+    PsiFile pubspecFile = PsiManager.getInstance(project).findFile(pubspec);
+    if (pubspecFile == null) {
+      return createScope(project, pubspec);
+    }
+
+    return CachedValuesManager.getManager(project).getCachedValue(pubspecFile, () -> {
+      List<Object> dependencies = new ArrayList<>();
+      dependencies.add(pubspecFile);
+      dependencies.add(ProjectRootModificationTracker.getInstance(project));
+      dependencies.add(VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS);
+      VirtualFile packageDir = pubspec.getParent();
+      VirtualFile packageConfig = packageDir == null ? null : packageDir.findFileByRelativePath(".dart_tool/package_config.json");
+      if (packageConfig != null) {
+        dependencies.add(packageConfig);
+      }
+      return CachedValueProvider.Result.create(createScope(project, pubspec), dependencies.toArray());
+    });
+  }
+
+  @NotNull
+  private static GlobalSearchScope createScope(@NotNull Project project, @NotNull VirtualFile pubspec) {
+    VirtualFile packageDir = pubspec.getParent();
+    if (packageDir == null) {
+      return GlobalSearchScope.projectScope(project);
+    }
+
+    Set<VirtualFile> dirs = new LinkedHashSet<>();
+    dirs.add(packageDir);
+    // the lib folders of path dependencies that are part of the project
+    DartUrlResolver.getInstance(project, pubspec).processLivePackages((packageName, libDir) -> dirs.add(libDir));
+    return GlobalSearchScopesCore.directoriesScope(project, true, dirs.toArray(VirtualFile.EMPTY_ARRAY));
+  }
+}
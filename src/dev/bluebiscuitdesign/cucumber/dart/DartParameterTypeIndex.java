@@ -0,0 +1,154 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.lang.LighterAST;
+import com.intellij.lang.LighterASTNode;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.impl.source.tree.LightTreeUtil;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.indexing.PsiDependentFileContent;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.lang.dart.DartTokenTypes;
+import com.jetbrains.lang.dart.DartTokenTypesSets;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom parameter types declared in Dart, keyed by their name with their regex as the value. A parameter type is a
+ * class extending CustomParameter that passes its name and regex to the super constructor, e.g.
+ * <pre>
+ * class ColourParameter extends CustomParameter&lt;Colour&gt; {
+ *   ColourParameter() : super("colour", RegExp(r"(red|green|blue)"), ...);
+ * }
+ * </pre>
+ */
+public class DartParameterTypeIndex extends FileBasedIndexExtension<String, String> {
+  public static final ID<String, String> INDEX_ID = ID.create("dart.cucumber.parameter.type");
+
+  static final String CUSTOM_PARAMETER = "CustomParameter";
+  private static final BytePatternMatcher CUSTOM_PARAMETER_MATCHER = BytePatternMatcher.create(Collections.singletonList(CUSTOM_PARAMETER));
+
+  @NotNull
+  @Override
+  public DataIndexer<String, String, FileContent> getIndexer() {
+    return inputData -> {
+      if (!CUSTOM_PARAMETER_MATCHER.containsAny(inputData.getContent())) {
+        return Collections.emptyMap();
+      }
+
+      CharSequence text = inputData.getContentAsText();
+      LighterAST lighterAst = ((PsiDependentFileContent)inputData).getLighterAST();
+      Map<String, String> result = new HashMap<>();
+      for (LighterASTNode clazz : LightTreeUtil.getChildrenOfType(lighterAst, lighterAst.getRoot(), DartTokenTypes.CLASS_DEFINITION)) {
+        LighterASTNode superclass = LightTreeUtil.firstChildOfType(lighterAst, clazz, DartTokenTypes.SUPERCLASS);
+        if (superclass == null || !StringUtil.contains(text.subSequence(superclass.getStartOffset(), superclass.getEndOffset()), CUSTOM_PARAMETER)) {
+          continue;
+        }
+        for (LighterASTNode initializer : findDescendants(lighterAst, clazz, DartTokenTypes.SUPER_CALL_OR_FIELD_INITIALIZER)) {
+          addParameterType(lighterAst, text, initializer, result);
+        }
+      }
+      return result;
+    };
+  }
+
+  private static void addParameterType(@NotNull LighterAST lighterAst, @NotNull CharSequence text, @NotNull LighterASTNode initializer,
+                                       @NotNull Map<String, String> result) {
+    LighterASTNode arguments = LightTreeUtil.firstChildOfType(lighterAst, initializer, DartTokenTypes.ARGUMENTS);
+    LighterASTNode argumentList = arguments != null ? LightTreeUtil.firstChildOfType(lighterAst, arguments, DartTokenTypes.ARGUMENT_LIST) : null;
+    if (argumentList == null) {
+      return;
+    }
+
+    List<LighterASTNode> expressions = new ArrayList<>();
+    for (LighterASTNode child : lighterAst.getChildren(argumentList)) {
+      IElementType type = child.getTokenType();
+      if (type != DartTokenTypes.COMMA && !DartTokenTypesSets.WHITE_SPACES.contains(type) && !DartTokenTypesSets.COMMENTS.contains(type)) {
+        expressions.add(child);
+      }
+    }
+    if (expressions.size() < 2 || expressions.get(0).getTokenType() != DartTokenTypes.STRING_LITERAL_EXPRESSION) {
+      return;
+    }
+
+    // the regex is either a plain string or the string handed to RegExp(...)
+    LighterASTNode regex = expressions.get(1).getTokenType() == DartTokenTypes.STRING_LITERAL_EXPRESSION
+                           ? expressions.get(1)
+                           : findFirstDescendant(lighterAst, expressions.get(1), DartTokenTypes.STRING_LITERAL_EXPRESSION);
+    if (regex == null) {
+      return;
+    }
+
+    String name = DartStringLiterals.decode(text, expressions.get(0).getStartOffset(), expressions.get(0).getEndOffset());
+    result.put(name, DartStringLiterals.decode(text, regex.getStartOffset(), regex.getEndOffset()));
+  }
+
+  @NotNull
+  private static List<LighterASTNode> findDescendants(@NotNull LighterAST lighterAst, @NotNull LighterASTNode root, @NotNull IElementType type) {
+    List<LighterASTNode> result = new ArrayList<>();
+    Deque<LighterASTNode> queue = new ArrayDeque<>(lighterAst.getChildren(root));
+    while (!queue.isEmpty()) {
+      LighterASTNode node = queue.poll();
+      if (node.getTokenType() == type) {
+        result.add(node);
+      } else {
+        queue.addAll(lighterAst.getChildren(node));
+      }
+    }
+    return result;
+  }
+
+  @Nullable
+  private static LighterASTNode findFirstDescendant(@NotNull LighterAST lighterAst, @NotNull LighterASTNode root, @NotNull IElementType type) {
+    List<LighterASTNode> descendants = findDescendants(lighterAst, root, type);
+    return descendants.isEmpty() ? null : descendants.get(0);
+  }
+
+  @NotNull
+  @Override
+  public ID<String, String> getName() {
+    return INDEX_ID;
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<String> getValueExternalizer() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @Override
+  public int getVersion() {
+    return 3;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DartIndexInputFilter();
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+}
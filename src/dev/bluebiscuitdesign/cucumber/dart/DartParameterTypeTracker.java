@@ -0,0 +1,115 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import com.jetbrains.lang.dart.psi.DartFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Changes whenever the custom parameter types of the project may have changed, and only then: when a Dart file
+ * that mentions CustomParameter is edited (before or after the edit), when Dart files come, go or change on disk,
+ * and when the pub dependencies change. Ordinary editing leaves it alone, so the parameter types and the step
+ * regexes built from them stay cached.
+ */
+public class DartParameterTypeTracker implements ModificationTracker, Disposable {
+  private static final Set<String> DEPENDENCY_FILES =
+    Collections.unmodifiableSet(new HashSet<>(Arrays.asList("pubspec.yaml", "pubspec.lock", "package_config.json", ".packages")));
+
+  private final AtomicLong myCount = new AtomicLong();
+
+  public DartParameterTypeTracker(@NotNull Project project) {
+    PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+      @Override
+      public void beforeChildrenChange(@NotNull PsiTreeChangeEvent event) {
+        onPsiChange(event.getFile());
+      }
+
+      @Override
+      public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        onPsiChange(event.getFile());
+      }
+
+      @Override
+      public void beforeChildReplacement(@NotNull PsiTreeChangeEvent event) {
+        onPsiChange(event.getFile());
+      }
+
+      @Override
+      public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        onPsiChange(event.getFile());
+      }
+    }, this);
+
+    project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          if (affectsParameterTypes(event)) {
+            myCount.incrementAndGet();
+            return;
+          }
+        }
+      }
+    });
+  }
+
+  public static DartParameterTypeTracker getInstance(@NotNull Project project) {
+    return project.getService(DartParameterTypeTracker.class);
+  }
+
+  /**
+   * @return how often the parameter types may have changed, it only ever goes up
+   */
+  @Override
+  public long getModificationCount() {
+    return myCount.get();
+  }
+
+  // called before and after every change, so a file that loses its last parameter type still counts
+  private void onPsiChange(@Nullable PsiFile file) {
+    if (file instanceof DartFile && StringUtil.contains(file.getViewProvider().getContents(), DartParameterTypeIndex.CUSTOM_PARAMETER)) {
+      myCount.incrementAndGet();
+    }
+  }
+
+  private static boolean affectsParameterTypes(@NotNull VFileEvent event) {
+    VirtualFile file = event.getFile();
+    String name = file != null ? file.getName() : StringUtil.notNullize(StringUtil.substringAfterLast(event.getPath(), "/"));
+    if (DEPENDENCY_FILES.contains(name)) {
+      return true;
+    }
+    if (!name.endsWith(".dart")) {
+      return false;
+    }
+    if (event instanceof VFileContentChangeEvent) {
+      // saving an edited document was already seen as a PSI change
+      return !event.isFromSave();
+    }
+    // created, deleted, moved or renamed
+    return !(event instanceof VFilePropertyChangeEvent) || ((VFilePropertyChangeEvent)event).isRename();
+  }
+
+  @Override
+  public void dispose() {
+  }
+}
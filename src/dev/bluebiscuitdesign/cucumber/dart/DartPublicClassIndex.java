@@ -0,0 +1,79 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.lang.LighterAST;
+import com.intellij.lang.LighterASTNode;
+import com.intellij.psi.impl.source.tree.LightTreeUtil;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.indexing.PsiDependentFileContent;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.lang.dart.DartTokenTypes;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The non-private top level classes of every Dart file, keyed by name with their offset as the value so they can be
+ * listed in file order. Used to generate the ogurets runner without parsing the test tree.
+ */
+public class DartPublicClassIndex extends FileBasedIndexExtension<String, Integer> {
+  public static final ID<String, Integer> INDEX_ID = ID.create("dart.cucumber.public.class");
+
+  @NotNull
+  @Override
+  public DataIndexer<String, Integer, FileContent> getIndexer() {
+    return inputData -> {
+      CharSequence text = inputData.getContentAsText();
+      LighterAST lighterAst = ((PsiDependentFileContent)inputData).getLighterAST();
+      Map<String, Integer> result = new HashMap<>();
+      for (LighterASTNode clazz : LightTreeUtil.getChildrenOfType(lighterAst, lighterAst.getRoot(), DartTokenTypes.CLASS_DEFINITION)) {
+        LighterASTNode name = LightTreeUtil.firstChildOfType(lighterAst, clazz, DartTokenTypes.COMPONENT_NAME);
+        if (name != null && text.charAt(name.getStartOffset()) != '_') {
+          result.put(text.subSequence(name.getStartOffset(), name.getEndOffset()).toString(), clazz.getStartOffset());
+        }
+      }
+      return result;
+    };
+  }
+
+  @NotNull
+  @Override
+  public ID<String, Integer> getName() {
+    return INDEX_ID;
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<Integer> getValueExternalizer() {
+    return EnumeratorIntegerDescriptor.INSTANCE;
+  }
+
+  @Override
+  public int getVersion() {
+    return 2;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DartIndexInputFilter();
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+}
@@ -0,0 +1,194 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import dev.bluebiscuitdesign.cucumber.dart.steps.DartAnnotatedStepDefinition;
+import dev.bluebiscuitdesign.cucumber.dart.steps.StepDefinitionMatcher;
+import dev.bluebiscuitdesign.cucumber.dart.steps.StepPatternCache;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.plugins.cucumber.steps.AbstractStepDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The step definitions handed to the Gherkin plugin, kept per owner (e.g. a module) for as long as the step index
+ * does not change. When it does change only the files whose index entries differ get new definitions, the
+ * definitions of every other file are reused as they are. New definitions are built concurrently when many files
+ * changed at once, e.g. on the first load, and always come out in the order of the files' paths.
+ */
+public class DartStepDefinitionCache {
+  private static final Logger LOG = Logger.getInstance(DartStepDefinitionCache.class);
+  // below this many changed files the definitions are built on the calling thread
+  private static final int PARALLEL_THRESHOLD = 8;
+
+  private final Project myProject;
+  private final Map<Object, CachedSteps> myCache = ContainerUtil.createConcurrentWeakMap();
+  private final AtomicLong myHits = new AtomicLong();
+  private final AtomicLong myMisses = new AtomicLong();
+  private final AtomicLong myReusedFiles = new AtomicLong();
+  private final AtomicLong myReloadedFiles = new AtomicLong();
+
+  public DartStepDefinitionCache(@NotNull Project project) {
+    myProject = project;
+  }
+
+  public static DartStepDefinitionCache getInstance(@NotNull Project project) {
+    return project.getService(DartStepDefinitionCache.class);
+  }
+
+  /**
+   * @param owner what the definitions are cached for, e.g. a module or a pubspec.yaml, it is only weakly referenced
+   * @param scope the files to look for definitions in, a different scope for the same owner brings the cache up to date
+   */
+  @NotNull
+  public List<AbstractStepDefinition> getStepDefinitions(@NotNull Object owner, @NotNull GlobalSearchScope scope) {
+    long stamp = FileBasedIndex.getInstance().getIndexModificationStamp(DartCucumberIndex.INDEX_ID, myProject);
+    CachedSteps cached = myCache.get(owner);
+    if (cached != null && cached.myStamp == stamp && cached.myScope.equals(scope)) {
+      myHits.incrementAndGet();
+      return cached.myDefinitions;
+    }
+
+    myMisses.incrementAndGet();
+    CachedSteps updated = load(stamp, scope, cached != null ? cached.myFiles : Collections.emptyMap());
+    // whoever finishes last wins, both are built from the same index
+    myCache.put(owner, updated);
+    // what the index knows now is what is served the next time it is unavailable
+    DartStepSnapshot.getInstance(myProject).scheduleSave();
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(String.format("Step definitions of %s reloaded: %s; previous matcher: %s; patterns: %s", owner, getStatistics(),
+        cached != null ? cached.myMatcher.getStatistics() : "none", StepPatternCache.getInstance().getStatistics()));
+    }
+    return updated.myDefinitions;
+  }
+
+  @NotNull
+  private CachedSteps load(long stamp, @NotNull GlobalSearchScope scope, @NotNull Map<VirtualFile, CachedFile> previous) {
+    // first only collect what the index has, in a stable order
+    List<Pair<VirtualFile, List<StepDefinitionIndexEntry>>> hits = new ArrayList<>();
+    FileBasedIndex.getInstance().processValues(DartCucumberIndex.INDEX_ID, true, null,
+      (file, entries) -> {
+        ProgressManager.checkCanceled();
+        hits.add(Pair.create(file, entries));
+        return true;
+      }, scope);
+    hits.sort(Comparator.comparing(hit -> hit.first.getPath()));
+
+    CachedFile[] loaded = new CachedFile[hits.size()];
+    List<Integer> changed = new ArrayList<>();
+    for (int i = 0; i < hits.size(); i++) {
+      CachedFile cachedFile = previous.get(hits.get(i).first);
+      if (cachedFile != null && cachedFile.myEntries.equals(hits.get(i).second)) {
+        loaded[i] = cachedFile;
+      } else {
+        changed.add(i);
+      }
+    }
+    myReusedFiles.addAndGet(hits.size() - changed.size());
+    myReloadedFiles.addAndGet(changed.size());
+
+    // then build the definitions of the files that changed, each into its own slot
+    PsiManager psiManager = PsiManager.getInstance(myProject);
+    Processor<Integer> materialize = i -> {
+      ProgressManager.checkCanceled();
+      PsiFile psiFile = psiManager.findFile(hits.get(i).first);
+      if (psiFile != null) {
+        loaded[i] = new CachedFile(hits.get(i).second, createDefinitions(psiFile, hits.get(i).second));
+      }
+      return true;
+    };
+    if (changed.size() < PARALLEL_THRESHOLD) {
+      changed.forEach(materialize::process);
+    } else if (!JobLauncher.getInstance().invokeConcurrentlyUnderProgress(changed, ProgressManager.getInstance().getProgressIndicator(), materialize)) {
+      throw new ProcessCanceledException();
+    }
+
+    Map<VirtualFile, CachedFile> files = new HashMap<>();
+    List<AbstractStepDefinition> definitions = new ArrayList<>();
+    for (int i = 0; i < loaded.length; i++) {
+      if (loaded[i] != null) {
+        files.put(hits.get(i).first, loaded[i]);
+        definitions.addAll(loaded[i].myDefinitions);
+      }
+    }
+    // the regex of a cached definition only changes with the parameter types, which also depend on the project roots
+    StepDefinitionMatcher matcher = StepDefinitionMatcher.attach(definitions, DartParameterTypeTracker.getInstance(myProject),
+      ProjectRootModificationTracker.getInstance(myProject));
+    return new CachedSteps(stamp, scope, Collections.unmodifiableList(definitions), files, matcher);
+  }
+
+  // the definitions only resolve their method when navigated to, so this does not parse the file
+  @NotNull
+  private static List<AbstractStepDefinition> createDefinitions(@NotNull PsiFile psiFile, @NotNull List<StepDefinitionIndexEntry> entries) {
+    List<AbstractStepDefinition> result = new ArrayList<>(entries.size());
+    for (StepDefinitionIndexEntry entry : entries) {
+      result.add(new DartAnnotatedStepDefinition(psiFile, entry));
+    }
+    return result;
+  }
+
+  /**
+   * @return how often the cached definitions were returned as they were
+   */
+  public long getHitCount() {
+    return myHits.get();
+  }
+
+  /**
+   * @return how often the definitions had to be brought up to date with the index
+   */
+  public long getMissCount() {
+    return myMisses.get();
+  }
+
+  @NotNull
+  public String getStatistics() {
+    return String.format("%d hits, %d misses, %d files reused, %d files reloaded",
+      myHits.get(), myMisses.get(), myReusedFiles.get(), myReloadedFiles.get());
+  }
+
+  private static class CachedSteps {
+    private final long myStamp;
+    private final GlobalSearchScope myScope;
+    private final List<AbstractStepDefinition> myDefinitions;
+    private final Map<VirtualFile, CachedFile> myFiles;
+    private final StepDefinitionMatcher myMatcher;
+
+    private CachedSteps(long stamp, @NotNull GlobalSearchScope scope, @NotNull List<AbstractStepDefinition> definitions,
+                        @NotNull Map<VirtualFile, CachedFile> files, @NotNull StepDefinitionMatcher matcher) {
+      myStamp = stamp;
+      myScope = scope;
+      myDefinitions = definitions;
+      myFiles = files;
+      myMatcher = matcher;
+    }
+  }
+
+  private static class CachedFile {
+    private final List<StepDefinitionIndexEntry> myEntries;
+    private final List<AbstractStepDefinition> myDefinitions;
+
+    private CachedFile(@NotNull List<StepDefinitionIndexEntry> entries, @NotNull List<AbstractStepDefinition> definitions) {
+      myEntries = entries;
+      myDefinitions = definitions;
+    }
+  }
+}
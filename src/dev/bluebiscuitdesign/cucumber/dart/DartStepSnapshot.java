@@ -0,0 +1,215 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import dev.bluebiscuitdesign.cucumber.dart.steps.DartAnnotatedStepDefinition;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.project.ProjectManagerListener;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Alarm;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.io.IOUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.plugins.cucumber.steps.AbstractStepDefinition;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The last step definitions the index knew about, kept on disk in the IDE's system directory so that feature files
+ * still resolve their steps while the project is indexing, including right after startup. Collecting it reads the
+ * step index of the whole project, so it is not done on every change: the definitions are collected in the
+ * background once they have stopped changing for a few seconds, and written out a while later or when the project
+ * is closed, whichever comes first.
+ */
+public class DartStepSnapshot implements Disposable {
+  private static final Logger LOG = Logger.getInstance(DartStepSnapshot.class);
+  private static final int MAGIC = 0x4F475354;
+  // bump whenever the layout below changes, the entries themselves follow the step index version
+  private static final int FORMAT_VERSION = 1;
+  private static final int INDEX_VERSION = new DartCucumberIndex().getVersion();
+  private static final int COLLECT_DELAY_MS = 5_000;
+  private static final int SAVE_DELAY_MS = 30_000;
+
+  private final Project myProject;
+  private final Alarm mySaveAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
+  // collected from the index but not written yet
+  private final AtomicReference<Map<String, List<StepDefinitionIndexEntry>>> myUnsaved = new AtomicReference<>();
+  // file url to the entries of that file, null until the snapshot has been read
+  private volatile Map<String, List<StepDefinitionIndexEntry>> myEntries;
+
+  public DartStepSnapshot(@NotNull Project project) {
+    myProject = project;
+    ApplicationManager.getApplication().getMessageBus().connect(this).subscribe(ProjectManager.TOPIC, new ProjectManagerListener() {
+      @Override
+      public void projectClosing(@NotNull Project closing) {
+        if (closing == myProject) {
+          mySaveAlarm.cancelAllRequests();
+          saveCollected();
+        }
+      }
+    });
+  }
+
+  public static DartStepSnapshot getInstance(@NotNull Project project) {
+    return project.getService(DartStepSnapshot.class);
+  }
+
+  /**
+   * @return the definitions from the snapshot that are in the scope, for use while the index is not available
+   */
+  @NotNull
+  public List<AbstractStepDefinition> getStepDefinitions(@NotNull GlobalSearchScope scope) {
+    Map<String, List<StepDefinitionIndexEntry>> entries = getEntries();
+    List<AbstractStepDefinition> result = new ArrayList<>();
+    VirtualFileManager fileManager = VirtualFileManager.getInstance();
+    PsiManager psiManager = PsiManager.getInstance(myProject);
+    for (Map.Entry<String, List<StepDefinitionIndexEntry>> fileEntries : entries.entrySet()) {
+      ProgressManager.checkCanceled();
+      VirtualFile file = fileManager.findFileByUrl(fileEntries.getKey());
+      if (file == null || !scope.contains(file)) {
+        continue;
+      }
+      PsiFile psiFile = psiManager.findFile(file);
+      if (psiFile == null) {
+        continue;
+      }
+      for (StepDefinitionIndexEntry entry : fileEntries.getValue()) {
+        result.add(new DartAnnotatedStepDefinition(psiFile, entry));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Marks the snapshot as out of date. The definitions are collected again once no request has come in for a few
+   * seconds and the project is in smart mode.
+   */
+  public void scheduleSave() {
+    mySaveAlarm.cancelAllRequests();
+    mySaveAlarm.addRequest(() -> ReadAction.nonBlocking(this::collectEntries)
+      .inSmartMode(myProject)
+      .coalesceBy(this)
+      .expireWith(this)
+      .submit(AppExecutorUtil.getAppExecutorService())
+      .onSuccess(this::collected), COLLECT_DELAY_MS);
+  }
+
+  private void collected(@NotNull Map<String, List<StepDefinitionIndexEntry>> entries) {
+    myEntries = entries;
+    myUnsaved.set(entries);
+    mySaveAlarm.addRequest(this::saveCollected, SAVE_DELAY_MS);
+  }
+
+  // also called on the EDT when the project closes, so it only writes what was already collected and never reads the
+  // index; synchronized, so a write from the alarm and one from closing don't share the temporary file
+  private synchronized void saveCollected() {
+    Map<String, List<StepDefinitionIndexEntry>> entries = myUnsaved.getAndSet(null);
+    if (entries != null) {
+      save(entries);
+    }
+  }
+
+  @NotNull
+  private Map<String, List<StepDefinitionIndexEntry>> collectEntries() {
+    // sorted, so the same definitions always write the same file
+    Map<String, List<StepDefinitionIndexEntry>> result = new TreeMap<>();
+    FileBasedIndex.getInstance().processValues(DartCucumberIndex.INDEX_ID, true, null,
+      (file, entries) -> {
+        ProgressManager.checkCanceled();
+        result.put(file.getUrl(), entries);
+        return true;
+      }, GlobalSearchScope.projectScope(myProject));
+    return result;
+  }
+
+  private void save(@NotNull Map<String, List<StepDefinitionIndexEntry>> entries) {
+    Path path = getSnapshotPath();
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(path.getParent());
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(INDEX_VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, List<StepDefinitionIndexEntry>> fileEntries : entries.entrySet()) {
+          IOUtil.writeUTF(out, fileEntries.getKey());
+          CucumberStepIndex.DATA_EXTERNALIZER.save(out, fileEntries.getValue());
+        }
+      }
+      // readers either see the old snapshot or the new one, never half of it
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOG.warn("Could not write the step definition snapshot to " + path, e);
+    }
+  }
+
+  @NotNull
+  private Map<String, List<StepDefinitionIndexEntry>> getEntries() {
+    Map<String, List<StepDefinitionIndexEntry>> entries = myEntries;
+    if (entries == null) {
+      entries = load();
+      myEntries = entries;
+    }
+    return entries;
+  }
+
+  @NotNull
+  private Map<String, List<StepDefinitionIndexEntry>> load() {
+    Path path = getSnapshotPath();
+    if (!Files.isRegularFile(path)) {
+      return Collections.emptyMap();
+    }
+
+    try {
+      // read into the heap, a mapped file stays locked on Windows until it is garbage collected and can't be replaced
+      DataInput in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)));
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readInt() != INDEX_VERSION) {
+        return Collections.emptyMap();
+      }
+      Map<String, List<StepDefinitionIndexEntry>> result = new TreeMap<>();
+      for (int count = in.readInt(); count > 0; count--) {
+        String url = IOUtil.readUTF(in);
+        result.put(url, CucumberStepIndex.DATA_EXTERNALIZER.read(in));
+      }
+      return result;
+    } catch (IOException e) {
+      LOG.info("Ignoring the unreadable step definition snapshot " + path, e);
+      return Collections.emptyMap();
+    }
+  }
+
+  @NotNull
+  private Path getSnapshotPath() {
+    return Paths.get(PathManager.getSystemPath(), "ogurets", myProject.getLocationHash(), "steps.bin");
+  }
+
+  @Override
+  public void dispose() {
+  }
+}
@@ -0,0 +1,85 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.plugins.cucumber.psi.GherkinFileType;
+import org.jetbrains.plugins.cucumber.steps.AbstractStepDefinition;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads the step definitions of every pub package with feature files, and compiles their patterns, once indexing
+ * is done. The first feature file opened then highlights as fast as the ones after it. Runs again whenever the
+ * project leaves dumb mode, as a reindex may have changed everything.
+ */
+public class DartStepWarmUpActivity implements StartupActivity.Background {
+  private static final Logger LOG = Logger.getInstance(DartStepWarmUpActivity.class);
+
+  @Override
+  public void runActivity(@NotNull Project project) {
+    project.getMessageBus().connect(project).subscribe(DumbService.DUMB_MODE, new DumbService.DumbModeListener() {
+      @Override
+      public void exitDumbMode() {
+        scheduleWarmUp(project);
+      }
+    });
+    scheduleWarmUp(project);
+  }
+
+  private static void scheduleWarmUp(@NotNull Project project) {
+    // restarted after every write action, so it never holds up typing
+    ReadAction.nonBlocking(() -> warmUp(project))
+      .inSmartMode(project)
+      .expireWith(project)
+      .submit(AppExecutorUtil.getAppExecutorService());
+  }
+
+  private static void warmUp(@NotNull Project project) {
+    long start = System.currentTimeMillis();
+    CucumberDartNIExtension extension = new CucumberDartNIExtension();
+    PsiManager psiManager = PsiManager.getInstance(project);
+
+    // one feature file per package is enough, they all share the package's steps
+    Set<Object> owners = new HashSet<>();
+    int definitionCount = 0;
+    for (VirtualFile file : FileTypeIndex.getFiles(GherkinFileType.INSTANCE, GlobalSearchScope.projectScope(project))) {
+      ProgressManager.checkCanceled();
+      PsiFile featureFile = psiManager.findFile(file);
+      Module module = featureFile != null ? ModuleUtilCore.findModuleForFile(file, project) : null;
+      if (module == null) {
+        continue;
+      }
+      VirtualFile pubspec = DartPackageScope.findPubspec(project, featureFile);
+      if (!owners.add(pubspec != null ? pubspec : module)) {
+        continue;
+      }
+
+      List<AbstractStepDefinition> definitions = extension.loadStepsFor(featureFile, module);
+      for (AbstractStepDefinition definition : definitions) {
+        ProgressManager.checkCanceled();
+        definition.getPattern();
+      }
+      definitionCount += definitions.size();
+    }
+
+    if (!owners.isEmpty()) {
+      LOG.info(String.format("Warmed up %d step definitions of %d packages in %d ms", definitionCount, owners.size(),
+        System.currentTimeMillis() - start));
+    }
+  }
+}
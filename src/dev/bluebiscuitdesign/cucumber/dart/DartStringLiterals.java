@@ -0,0 +1,178 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Decodes the value of Dart string literals as they appear in annotation arguments, in one pass over the source
+ * text: raw and escaped, single and triple quoted, and adjacent literals, which Dart concatenates. Interpolations
+ * can't be evaluated, they are kept as written and reported in the log.
+ */
+public class DartStringLiterals {
+  private static final Logger LOG = Logger.getInstance(DartStringLiterals.class);
+
+  private DartStringLiterals() {
+  }
+
+  @NotNull
+  public static String decode(@NotNull CharSequence text) {
+    return decode(text, 0, text.length());
+  }
+
+  /**
+   * @param start where the literal starts, it may be preceded by whitespace and the opening parenthesis of an
+   *              argument list
+   * @return the value of the string literals that start there, or the trimmed source text if there are none
+   */
+  @NotNull
+  public static String decode(@NotNull CharSequence text, int start, int end) {
+    StringBuilder result = new StringBuilder(end - start);
+    int i = skipWhitespace(text, start, end);
+    if (i < end && text.charAt(i) == '(') {
+      i = skipWhitespace(text, i + 1, end);
+    }
+
+    boolean found = false;
+    while (i < end) {
+      // Dart only knows a lower case r prefix
+      boolean raw = text.charAt(i) == 'r';
+      int quoteStart = raw ? i + 1 : i;
+      if (quoteStart >= end || (text.charAt(quoteStart) != '\'' && text.charAt(quoteStart) != '"')) {
+        break;
+      }
+      i = decodeLiteral(text, quoteStart, end, raw, result);
+      if (i < 0) {
+        // what there is up to the end is still the best guess
+        report("unterminated", text, quoteStart, end);
+        found = true;
+        break;
+      }
+      found = true;
+      i = skipWhitespace(text, i, end);
+    }
+
+    if (!found) {
+      report("not a string literal", text, start, end);
+      return text.subSequence(start, end).toString().trim();
+    }
+    return result.toString();
+  }
+
+  // returns the offset after the closing quote, or -1 if there is none
+  private static int decodeLiteral(@NotNull CharSequence text, int quoteStart, int end, boolean raw, @NotNull StringBuilder result) {
+    char quote = text.charAt(quoteStart);
+    boolean triple = quoteStart + 2 < end && text.charAt(quoteStart + 1) == quote && text.charAt(quoteStart + 2) == quote;
+    int i = quoteStart + (triple ? 3 : 1);
+    if (triple) {
+      // a line break right after the opening quotes is not part of the value
+      i = skipFirstLineBreak(text, i, end);
+    }
+
+    while (i < end) {
+      char c = text.charAt(i);
+      if (c == quote && (!triple || (i + 2 < end && text.charAt(i + 1) == quote && text.charAt(i + 2) == quote))) {
+        return i + (triple ? 3 : 1);
+      }
+      if (c == '\\' && !raw && i + 1 < end) {
+        i = decodeEscape(text, i + 1, end, result);
+        continue;
+      }
+      if (c == '$' && !raw) {
+        report("interpolation", text, i, end);
+      }
+      result.append(c);
+      i++;
+    }
+    return -1;
+  }
+
+  // returns the offset after the escape sequence
+  private static int decodeEscape(@NotNull CharSequence text, int i, int end, @NotNull StringBuilder result) {
+    char c = text.charAt(i);
+    switch (c) {
+      case 'n': result.append('\n'); return i + 1;
+      case 'r': result.append('\r'); return i + 1;
+      case 't': result.append('\t'); return i + 1;
+      case 'b': result.append('\b'); return i + 1;
+      case 'f': result.append('\f'); return i + 1;
+      case 'v': result.append('\u000B'); return i + 1;
+      case 'x': return decodeCodePoint(text, i, i + 1, i + 3, end, result);
+      case 'u':
+        if (i + 1 < end && text.charAt(i + 1) == '{') {
+          int close = indexOf(text, '}', i + 2, Math.min(end, i + 9));
+          if (close > 0) {
+            // on failure decoding goes on at the first digit, so an empty escape keeps its closing brace
+            int next = decodeCodePoint(text, i, i + 2, close, end, result);
+            return next == i + 2 ? next : close + 1;
+          }
+          // keep the escape as it was written
+          report("bad unicode escape", text, i, end);
+          result.append('\\').append(c);
+          return i + 1;
+        }
+        return decodeCodePoint(text, i, i + 1, i + 5, end, result);
+      default:
+        // every other escaped character stands for itself, e.g. \$ \' \" \\
+        result.append(c);
+        return i + 1;
+    }
+  }
+
+  // escape is the offset of the x or u, start the offset of the first digit; returns digitsEnd, or start on failure
+  private static int decodeCodePoint(@NotNull CharSequence text, int escape, int start, int digitsEnd, int end,
+                                     @NotNull StringBuilder result) {
+    int codePoint = 0;
+    if (digitsEnd > end || digitsEnd <= start) {
+      codePoint = -1;
+    }
+    for (int i = start; codePoint >= 0 && i < digitsEnd; i++) {
+      int digit = Character.digit(text.charAt(i), 16);
+      codePoint = digit < 0 ? -1 : codePoint * 16 + digit;
+    }
+    if (codePoint < 0 || !Character.isValidCodePoint(codePoint)) {
+      // keep the escape as it was written
+      report("bad hex escape", text, start, end);
+      result.append('\\').append(text, escape, start);
+      return start;
+    }
+    result.appendCodePoint(codePoint);
+    return digitsEnd;
+  }
+
+  private static int skipWhitespace(@NotNull CharSequence text, int i, int end) {
+    while (i < end && Character.isWhitespace(text.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipFirstLineBreak(@NotNull CharSequence text, int i, int end) {
+    int j = i;
+    while (j < end && (text.charAt(j) == ' ' || text.charAt(j) == '\t')) {
+      j++;
+    }
+    if (j + 1 < end && text.charAt(j) == '\r' && text.charAt(j + 1) == '\n') {
+      return j + 2;
+    }
+    if (j < end && (text.charAt(j) == '\n' || text.charAt(j) == '\r')) {
+      return j + 1;
+    }
+    return i;
+  }
+
+  private static int indexOf(@NotNull CharSequence text, char c, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (text.charAt(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static void report(@NotNull String reason, @NotNull CharSequence text, int offset, int end) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(String.format("Could not fully decode Dart string literal [reason=%s, offset=%d]: %s", reason, offset,
+        text.subSequence(offset, Math.min(end, offset + 80))));
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.plugins.cucumber.psi.GherkinFileType;
+import org.jetbrains.plugins.cucumber.psi.GherkinStep;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The steps of every feature file keyed by the words of their text (see {@link StepTextTokens#words}), with the
+ * offsets of the steps that contain each word. Scenario outline steps are indexed with the words of every
+ * substitution from their examples.
+ */
+public class GherkinStepTextIndex extends FileBasedIndexExtension<String, int[]> {
+  public static final ID<String, int[]> INDEX_ID = ID.create("dart.cucumber.gherkin.step.text");
+
+  /**
+   * Hands every step in the scope that contains all of the given words to the processor, one feature file at a time.
+   *
+   * @return false if the processor asked to stop
+   */
+  public static boolean processStepsWithWords(@NotNull Project project, @NotNull Collection<String> words,
+                                              @NotNull GlobalSearchScope scope, @NotNull Processor<? super GherkinStep> processor) {
+    if (words.isEmpty()) {
+      return true;
+    }
+
+    FileBasedIndex index = FileBasedIndex.getInstance();
+    Set<VirtualFile> files = null;
+    for (String word : words) {
+      Collection<VirtualFile> containing = index.getContainingFiles(INDEX_ID, word, scope);
+      if (files == null) {
+        files = new LinkedHashSet<>(containing);
+      } else {
+        files.retainAll(containing instanceof Set ? containing : new HashSet<>(containing));
+      }
+      if (files.isEmpty()) {
+        return true;
+      }
+    }
+
+    PsiManager psiManager = PsiManager.getInstance(project);
+    for (VirtualFile file : files) {
+      ProgressManager.checkCanceled();
+      PsiFile psiFile = psiManager.findFile(file);
+      if (psiFile == null) {
+        continue;
+      }
+      for (int offset : findOffsetsWithAllWords(project, file, words)) {
+        GherkinStep step = PsiTreeUtil.getParentOfType(psiFile.findElementAt(offset), GherkinStep.class, false);
+        if (step != null && !processor.process(step)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @NotNull
+  private static int[] findOffsetsWithAllWords(@NotNull Project project, @NotNull VirtualFile file, @NotNull Collection<String> words) {
+    GlobalSearchScope fileScope = GlobalSearchScope.fileScope(project, file);
+    int[] offsets = null;
+    for (String word : words) {
+      List<int[]> values = FileBasedIndex.getInstance().getValues(INDEX_ID, word, fileScope);
+      int[] wordOffsets = values.isEmpty() ? new int[0] : values.get(0);
+      offsets = offsets == null ? wordOffsets : intersect(offsets, wordOffsets);
+      if (offsets.length == 0) {
+        break;
+      }
+    }
+    return offsets != null ? offsets : new int[0];
+  }
+
+  // both are sorted
+  @NotNull
+  private static int[] intersect(@NotNull int[] a, @NotNull int[] b) {
+    int[] result = new int[Math.min(a.length, b.length)];
+    int size = 0;
+    for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        result[size++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, int[], FileContent> getIndexer() {
+    return inputData -> {
+      Collection<GherkinStep> steps = PsiTreeUtil.findChildrenOfType(inputData.getPsiFile(), GherkinStep.class);
+      if (steps.isEmpty()) {
+        return Collections.emptyMap();
+      }
+
+      Map<String, List<Integer>> offsetsByWord = new HashMap<>();
+      for (GherkinStep step : steps) {
+        Set<String> words = new HashSet<>(StepTextTokens.words(step.getName()));
+        for (String substitutedName : step.getSubstitutedNameList()) {
+          words.addAll(StepTextTokens.words(substitutedName));
+        }
+        int offset = step.getTextRange().getStartOffset();
+        for (String word : words) {
+          offsetsByWord.computeIfAbsent(word, k -> new ArrayList<>()).add(offset);
+        }
+      }
+
+      Map<String, int[]> result = new HashMap<>();
+      offsetsByWord.forEach((word, offsets) -> result.put(word, offsets.stream().mapToInt(Integer::intValue).toArray()));
+      return result;
+    };
+  }
+
+  @NotNull
+  @Override
+  public ID<String, int[]> getName() {
+    return INDEX_ID;
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<int[]> getValueExternalizer() {
+    return OFFSETS_EXTERNALIZER;
+  }
+
+  @Override
+  public int getVersion() {
+    return 1;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(GherkinFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  // the offsets are ascending, so they are stored as variable length deltas
+  private static final DataExternalizer<int[]> OFFSETS_EXTERNALIZER = new DataExternalizer<int[]>() {
+    @Override
+    public void save(@NotNull DataOutput out, int[] value) throws IOException {
+      DataInputOutputUtil.writeINT(out, value.length);
+      int previous = 0;
+      for (int offset : value) {
+        DataInputOutputUtil.writeINT(out, offset - previous);
+        previous = offset;
+      }
+    }
+
+    @Override
+    public int[] read(@NotNull DataInput in) throws IOException {
+      int[] result = new int[DataInputOutputUtil.readINT(in)];
+      int previous = 0;
+      for (int i = 0; i < result.length; i++) {
+        previous += DataInputOutputUtil.readINT(in);
+        result[i] = previous;
+      }
+      return result;
+    }
+  };
+}
@@ -0,0 +1,79 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * One @Before or @After hook as recorded by the hook index.
+ */
+public class HookIndexEntry {
+  @NotNull private final String myAnnotation;
+  @NotNull private final String myMethodName;
+  private final int myMethodOffset;
+  private final int myOrder;
+  @Nullable private final String myTags;
+
+  public HookIndexEntry(@NotNull String annotation, @NotNull String methodName, int methodOffset, int order, @Nullable String tags) {
+    myAnnotation = annotation;
+    myMethodName = methodName;
+    myMethodOffset = methodOffset;
+    myOrder = order;
+    myTags = tags;
+  }
+
+  /**
+   * @return Before or After
+   */
+  @NotNull
+  public String getAnnotation() {
+    return myAnnotation;
+  }
+
+  @NotNull
+  public String getMethodName() {
+    return myMethodName;
+  }
+
+  public int getMethodOffset() {
+    return myMethodOffset;
+  }
+
+  /**
+   * @return the order argument of the hook, 0 if it has none
+   */
+  public int getOrder() {
+    return myOrder;
+  }
+
+  /**
+   * @return the tag expression the hook is limited to, or null if it runs for every scenario
+   */
+  @Nullable
+  public String getTags() {
+    return myTags;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    HookIndexEntry entry = (HookIndexEntry)o;
+    return myMethodOffset == entry.myMethodOffset &&
+      myOrder == entry.myOrder &&
+      myAnnotation.equals(entry.myAnnotation) &&
+      myMethodName.equals(entry.myMethodName) &&
+      Objects.equals(myTags, entry.myTags);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(myAnnotation, myMethodName, myMethodOffset, myOrder, myTags);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("@%s(order: %d, tags: %s) %s at %d", myAnnotation, myOrder, myTags, myMethodName, myMethodOffset);
+  }
+}
@@ -0,0 +1,83 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * One step definition as recorded by the step index: everything needed to build a step definition without
+ * loading the PSI of the file it lives in.
+ */
+public class StepDefinitionIndexEntry {
+  @NotNull private final String myAnnotation;
+  @NotNull private final String myPattern;
+  @NotNull private final String myMethodName;
+  private final int myMethodOffset;
+  private final int myPatternOffset;
+
+  public StepDefinitionIndexEntry(@NotNull String annotation, @NotNull String pattern, @NotNull String methodName,
+                                  int methodOffset, int patternOffset) {
+    myAnnotation = annotation;
+    myPattern = pattern;
+    myMethodName = methodName;
+    myMethodOffset = methodOffset;
+    myPatternOffset = patternOffset;
+  }
+
+  /**
+   * @return the annotation name, e.g. Given or When
+   */
+  @NotNull
+  public String getAnnotation() {
+    return myAnnotation;
+  }
+
+  /**
+   * @return the annotation text with the Dart string quoting removed
+   */
+  @NotNull
+  public String getPattern() {
+    return myPattern;
+  }
+
+  @NotNull
+  public String getMethodName() {
+    return myMethodName;
+  }
+
+  /**
+   * @return the offset of the method's name, which is where the definition is resolved to PSI
+   */
+  public int getMethodOffset() {
+    return myMethodOffset;
+  }
+
+  /**
+   * @return the offset of the string literal holding the pattern
+   */
+  public int getPatternOffset() {
+    return myPatternOffset;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    StepDefinitionIndexEntry entry = (StepDefinitionIndexEntry)o;
+    return myMethodOffset == entry.myMethodOffset &&
+      myPatternOffset == entry.myPatternOffset &&
+      myAnnotation.equals(entry.myAnnotation) &&
+      myPattern.equals(entry.myPattern) &&
+      myMethodName.equals(entry.myMethodName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(myAnnotation, myPattern, myMethodName, myMethodOffset, myPatternOffset);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("@%s('%s') %s at %d", myAnnotation, myPattern, myMethodName, myMethodOffset);
+  }
+}
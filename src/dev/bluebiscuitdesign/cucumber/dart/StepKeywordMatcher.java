@@ -0,0 +1,97 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A fixed set of annotation names compiled into an open addressing hash table, so that a name can be looked up
+ * straight from a range of the file text without creating a String for it. The indexers call this for every
+ * piece of metadata in every Dart file, so it must not allocate.
+ */
+public final class StepKeywordMatcher {
+  private final String[] myKeywords;
+  private final int[] myHashes;
+  private final int myMask;
+  private final int myMinLength;
+  private final int myMaxLength;
+
+  private StepKeywordMatcher(@NotNull Set<String> keywords) {
+    int capacity = Integer.highestOneBit(Math.max(keywords.size(), 1) * 2 - 1) << 1;
+    myKeywords = new String[capacity];
+    myHashes = new int[capacity];
+    myMask = capacity - 1;
+
+    int min = Integer.MAX_VALUE;
+    int max = 0;
+    for (String keyword : keywords) {
+      int hash = hash(keyword, 0, keyword.length());
+      int slot = hash & myMask;
+      while (myKeywords[slot] != null) {
+        slot = (slot + 1) & myMask;
+      }
+      myKeywords[slot] = keyword;
+      myHashes[slot] = hash;
+      min = Math.min(min, keyword.length());
+      max = Math.max(max, keyword.length());
+    }
+    myMinLength = min;
+    myMaxLength = max;
+  }
+
+  /**
+   * @param markers the annotation names Ogurets itself understands
+   * @param dialectKeywords optional localised Gherkin keywords that are also accepted as annotation names
+   */
+  @NotNull
+  public static StepKeywordMatcher create(@NotNull Collection<String> markers, @Nullable Collection<String> dialectKeywords) {
+    Set<String> keywords = new LinkedHashSet<>(markers);
+    if (dialectKeywords != null) {
+      keywords.addAll(dialectKeywords);
+    }
+    return new StepKeywordMatcher(keywords);
+  }
+
+  public boolean matches(@NotNull CharSequence text, int start, int end) {
+    int length = end - start;
+    if (length < myMinLength || length > myMaxLength) {
+      return false;
+    }
+
+    int hash = hash(text, start, end);
+    for (int slot = hash & myMask; myKeywords[slot] != null; slot = (slot + 1) & myMask) {
+      if (myHashes[slot] == hash && regionMatches(myKeywords[slot], text, start, length)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public boolean matches(@NotNull CharSequence name) {
+    return matches(name, 0, name.length());
+  }
+
+  private static boolean regionMatches(@NotNull String keyword, @NotNull CharSequence text, int start, int length) {
+    if (keyword.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (keyword.charAt(i) != text.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // same as String.hashCode() over the range, with the high bits folded in as the table is indexed by the low ones
+  private static int hash(@NotNull CharSequence text, int start, int end) {
+    int h = 0;
+    for (int i = start; i < end; i++) {
+      h = 31 * h + text.charAt(i);
+    }
+    return h ^ (h >>> 16);
+  }
+}
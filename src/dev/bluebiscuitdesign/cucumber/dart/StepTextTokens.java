@@ -0,0 +1,179 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Works out which literal text a step definition pattern requires at the start of every step it matches,
+ * so that definitions can be grouped by the words a Gherkin step has to begin with.
+ */
+public class StepTextTokens {
+  /**
+   * Words shorter than this are too common to narrow a search down, so they are left out of {@link #words}.
+   */
+  public static final int MIN_WORD_LENGTH = 3;
+
+  private static final String REGEX_META = "\\.[](){}*+?|$^";
+  private static final String EXPRESSION_META = "\\{}()/";
+  private static final String REGEX_QUANTIFIERS = "*+?{";
+
+  private StepTextTokens() {
+  }
+
+  /**
+   * @return the text any step matched by the pattern must start with, or an empty string if there is none. Regular
+   * expressions without a leading ^ may match anywhere in the step, and neither may ones with a top-level |, so they
+   * never have a prefix. A quantifier after the last literal character takes that character off the prefix.
+   */
+  @NotNull
+  public static String literalPrefix(@NotNull String pattern) {
+    boolean expression = CucumberDartUtil.isCucumberExpression(pattern);
+    return pattern.substring(prefixStart(pattern, expression), prefixEnd(pattern, expression));
+  }
+
+  /**
+   * @return the lower cased words of a Gherkin step's text, the runs of letters and digits of at least
+   * {@link #MIN_WORD_LENGTH} characters
+   */
+  @NotNull
+  public static Set<String> words(@NotNull String text) {
+    Set<String> result = new LinkedHashSet<>();
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        if (i - start >= MIN_WORD_LENGTH) {
+          result.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        }
+        start = -1;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the words (see {@link #words}) every step matched by the pattern has to contain. Only whitespace
+   * separated chunks of the pattern that are entirely literal count, so this may be empty but never has too many.
+   */
+  @NotNull
+  public static Set<String> requiredWords(@NotNull String pattern) {
+    boolean expression = CucumberDartUtil.isCucumberExpression(pattern);
+    String body = pattern;
+    if (!expression) {
+      if (body.startsWith("^")) {
+        body = body.substring(1);
+      }
+      if (body.endsWith("$") && !body.endsWith("\\$")) {
+        body = body.substring(0, body.length() - 1);
+      }
+    }
+    if (!expression && hasTopLevelAlternative(body)) {
+      // the whole regex is a choice, nothing in it is required
+      return Collections.emptySet();
+    }
+    String special = expression ? EXPRESSION_META : REGEX_META;
+
+    Set<String> result = new LinkedHashSet<>();
+    int depth = 0;
+    int chunkStart = 0;
+    boolean literal = true;
+    for (int i = 0; i <= body.length(); i++) {
+      char c = i < body.length() ? body.charAt(i) : ' ';
+      if (Character.isWhitespace(c) && depth == 0) {
+        if (literal) {
+          result.addAll(words(body.substring(chunkStart, i)));
+        }
+        chunkStart = i + 1;
+        literal = true;
+        continue;
+      }
+
+      if (special.indexOf(c) >= 0) {
+        literal = false;
+      }
+      if (c == '\\') {
+        i++;
+      } else if (c == '(' || c == '[' || c == '{') {
+        depth++;
+      } else if (c == ')' || c == ']' || c == '}') {
+        depth = Math.max(0, depth - 1);
+      }
+    }
+    return result;
+  }
+
+  private static int prefixStart(@NotNull String pattern, boolean expression) {
+    if (expression) {
+      return 0;
+    }
+    return pattern.startsWith("^") ? 1 : pattern.length();
+  }
+
+  private static int prefixEnd(@NotNull String pattern, boolean expression) {
+    int start = prefixStart(pattern, expression);
+    if (start == pattern.length()) {
+      return start;
+    }
+
+    if (expression) {
+      for (int i = start; i < pattern.length(); i++) {
+        char c = pattern.charAt(i);
+        if (c == '/') {
+          // an alternative, so the word it belongs to is not literal
+          return wordStart(pattern, start, i);
+        }
+        if (c == '{' || c == '(' || c == '\\') {
+          return i;
+        }
+      }
+      return pattern.length();
+    }
+
+    if (hasTopLevelAlternative(pattern)) {
+      // ^a|b means ^a or b anywhere, the first branch's text is not required
+      return start;
+    }
+    for (int i = start; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (REGEX_QUANTIFIERS.indexOf(c) >= 0) {
+        // the quantifier applies to the character before it
+        return Math.max(start, i - 1);
+      }
+      if (REGEX_META.indexOf(c) >= 0) {
+        return i;
+      }
+    }
+    return pattern.length();
+  }
+
+  private static boolean hasTopLevelAlternative(@NotNull String regex) {
+    int depth = 0;
+    for (int i = 0; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == '(' || c == '[') {
+        depth++;
+      } else if (c == ')' || c == ']') {
+        depth = Math.max(0, depth - 1);
+      } else if (c == '|' && depth == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int wordStart(@NotNull String pattern, int start, int end) {
+    int i = end;
+    while (i > start && !Character.isWhitespace(pattern.charAt(i - 1))) {
+      i--;
+    }
+    return i;
+  }
+}
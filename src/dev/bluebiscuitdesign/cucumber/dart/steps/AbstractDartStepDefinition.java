@@ -1,6 +1,7 @@
 package dev.bluebiscuitdesign.cucumber.dart.steps;
 
 import dev.bluebiscuitdesign.cucumber.dart.CucumberDartUtil;
+import dev.bluebiscuitdesign.cucumber.dart.CucumberExpressionCompiler;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.psi.PsiElement;
@@ -11,34 +12,94 @@ import org.jetbrains.plugins.cucumber.steps.AbstractStepDefinition;
 
 import java.util.Collections;
 import java.util.List;
-
-import static org.jetbrains.plugins.cucumber.CucumberUtil.buildRegexpFromCucumberExpression;
+import java.util.regex.Pattern;
 
 public abstract class AbstractDartStepDefinition extends AbstractStepDefinition {
+  @Nullable
+  private volatile StepDefinitionMatcher myMatcher;
+  // the step last compiled for this definition, the shared cache is only asked again when its text or parameter types change
+  @Nullable
+  private volatile StepPatternCache.CompiledStep myCompiledStep;
+
   public AbstractDartStepDefinition(@NotNull PsiElement element) {
     super(element);
   }
 
+  @Override
+  public boolean matches(@NotNull String stepName) {
+    // most definitions are ruled out by their literal prefix, the rest only run their regex once per step text
+    StepDefinitionMatcher matcher = myMatcher;
+    return matcher != null ? matcher.matches(this, stepName) : super.matches(stepName);
+  }
+
+  boolean matchesPattern(@NotNull String stepName) {
+    return super.matches(stepName);
+  }
+
+  void setMatcher(@NotNull StepDefinitionMatcher matcher) {
+    myMatcher = matcher;
+  }
+
   @Nullable
   @Override
   public String getCucumberRegex() {
-    String definitionText = getCucumberRegexFromElement(getElement());
+    StepPatternCache.CompiledStep compiled = getCompiledStep();
+    return compiled != null ? compiled.getRegex() : null;
+  }
+
+  @Nullable
+  @Override
+  public Pattern getPattern() {
+    StepPatternCache.CompiledStep compiled = getCompiledStep();
+    return compiled != null ? compiled.getPattern() : null;
+  }
+
+  @Nullable
+  private StepPatternCache.CompiledStep getCompiledStep() {
+    String definitionText = getDefinitionText();
     if (definitionText == null) {
       return null;
     }
-    PsiElement element = getElement();
+    PsiElement element = getContextElement();
     if (element == null) {
       return null;
     }
-    final Module module = ModuleUtilCore.findModuleForPsiElement(element);
-    if (module != null) {
-      if (CucumberDartUtil.isCucumberExpression(definitionText)) {
-        ParameterTypeManager parameterTypes = CucumberDartUtil.getAllParameterTypes(module);
-        return buildRegexpFromCucumberExpression(definitionText, parameterTypes);
-      }
+    ParameterTypeManager parameterTypes = getParameterTypes(element, definitionText);
+
+    StepPatternCache.CompiledStep compiled = myCompiledStep;
+    if (compiled != null && compiled.isFor(definitionText, parameterTypes)) {
+      return compiled;
     }
+    compiled = parameterTypes != null
+               ? StepPatternCache.getInstance().get(definitionText, parameterTypes, text -> CucumberExpressionCompiler.toRegex(text, parameterTypes))
+               : StepPatternCache.getInstance().get(definitionText, null, text -> text);
+    myCompiledStep = compiled;
+    return compiled;
+  }
 
-    return definitionText;
+  /**
+   * @return the parameter types of the element's module if the definition text is a cucumber expression, null for a regex
+   */
+  @Nullable
+  private static ParameterTypeManager getParameterTypes(@NotNull PsiElement element, @NotNull String definitionText) {
+    if (!CucumberDartUtil.isCucumberExpression(definitionText)) {
+      return null;
+    }
+    final Module module = ModuleUtilCore.findModuleForPsiElement(element);
+    return module != null ? CucumberDartUtil.getAllParameterTypes(module) : null;
+  }
+
+  @Nullable
+  protected String getDefinitionText() {
+    return getCucumberRegexFromElement(getElement());
+  }
+
+  /**
+   * @return the element whose module decides which parameter types the definition text may use
+   */
+  @Nullable
+  protected PsiElement getContextElement() {
+    return getElement();
   }
 
   @Override
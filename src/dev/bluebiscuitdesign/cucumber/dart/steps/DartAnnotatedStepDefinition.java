@@ -1,22 +1,85 @@
 package dev.bluebiscuitdesign.cucumber.dart.steps;
 
 import dev.bluebiscuitdesign.cucumber.dart.CucumberDartUtil;
+import dev.bluebiscuitdesign.cucumber.dart.StepDefinitionIndexEntry;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.lang.dart.psi.DartMethodDeclaration;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class DartAnnotatedStepDefinition extends AbstractDartStepDefinition {
   private final String myAnnotationClassName;
+  @Nullable
+  private final StepDefinitionIndexEntry myIndexEntry;
+  // only set once the method was resolved for navigation or rename
+  @Nullable
+  private volatile SmartPsiElementPointer<DartMethodDeclaration> myMethodPointer;
 
   public DartAnnotatedStepDefinition(@NotNull PsiElement stepDef, @NotNull String annotationClassName) {
     super(stepDef);
     myAnnotationClassName = annotationClassName;
+    myIndexEntry = null;
+  }
+
+  /**
+   * Builds the definition from the step index alone, the method is only looked up in the file's PSI when
+   * someone asks for the element. Nothing but smart pointers is kept, so cached definitions never hold on to
+   * the PSI of their file.
+   */
+  public DartAnnotatedStepDefinition(@NotNull PsiFile file, @NotNull StepDefinitionIndexEntry indexEntry) {
+    super(file);
+    myAnnotationClassName = indexEntry.getAnnotation();
+    myIndexEntry = indexEntry;
+  }
+
+  @Nullable
+  @Override
+  public PsiElement getElement() {
+    if (myIndexEntry == null) {
+      return super.getElement();
+    }
+
+    SmartPsiElementPointer<DartMethodDeclaration> methodPointer = myMethodPointer;
+    DartMethodDeclaration method = methodPointer != null ? methodPointer.getElement() : null;
+    if (method != null) {
+      return method;
+    }
+
+    PsiElement element = super.getElement();
+    if (!(element instanceof PsiFile)) {
+      return element;
+    }
+    method = PsiTreeUtil.getParentOfType(((PsiFile)element).findElementAt(myIndexEntry.getMethodOffset()), DartMethodDeclaration.class);
+    if (method != null) {
+      // a pointer does not keep the file's PSI alive, yet finds the method again after edits
+      myMethodPointer = SmartPointerManager.getInstance(element.getProject()).createSmartPsiElementPointer(method, (PsiFile)element);
+    }
+    return method;
+  }
+
+  @Nullable
+  @Override
+  protected String getDefinitionText() {
+    return myIndexEntry != null ? myIndexEntry.getPattern() : super.getDefinitionText();
+  }
+
+  @Nullable
+  @Override
+  protected PsiElement getContextElement() {
+    return myIndexEntry != null ? super.getElement() : super.getContextElement();
   }
 
   @Nullable
   @Override
   protected String getCucumberRegexFromElement(PsiElement element) {
+    if (myIndexEntry != null) {
+      return myIndexEntry.getPattern();
+    }
+
     if (element == null) {
       return null;
     }
@@ -0,0 +1,203 @@
+package dev.bluebiscuitdesign.cucumber.dart.steps;
+
+import dev.bluebiscuitdesign.cucumber.dart.StepTextTokens;
+import com.intellij.openapi.util.ModificationTracker;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.plugins.cucumber.steps.AbstractStepDefinition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Narrows a set of step definitions down to the ones that can match a step before any regex runs. The definitions
+ * are kept in a trie on the literal text every step they match has to start with (see
+ * {@link StepTextTokens#literalPrefix}), so the candidates for a step are found by walking its text once, however
+ * many definitions there are. Definitions without such a prefix are candidates for every step.
+ * <p>
+ * What a step text matched is remembered, so rehighlighting a feature file only runs the regexes for the lines that
+ * were edited. Only the definitions that did match are kept per step text, the candidates are worked out again when
+ * a step is matched anew. All of it is forgotten when the definitions change, as they then get a new matcher.
+ */
+public final class StepDefinitionMatcher {
+  private static final int MAX_CACHED_STEPS = 2048;
+
+  private final Node myRoot = new Node();
+  private final ModificationTracker[] myPatternTrackers;
+  private final Map<String, StepMatches> myMatches = new LinkedHashMap<String, StepMatches>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, StepMatches> eldest) {
+      return size() > MAX_CACHED_STEPS;
+    }
+  };
+  private volatile StepMatches myLastMatches;
+  private final AtomicLong myHits = new AtomicLong();
+  private final AtomicLong myMisses = new AtomicLong();
+
+  private StepDefinitionMatcher(@NotNull ModificationTracker[] patternTrackers) {
+    myPatternTrackers = patternTrackers;
+  }
+
+  /**
+   * Builds a matcher over the definitions and makes each of them use it in {@link AbstractDartStepDefinition#matches}.
+   * The matcher lives as long as the set of definitions does, so it remembers which definitions match which step
+   * text until that set is replaced.
+   *
+   * @param patternTrackers change whenever the regex of a definition may change without the set being replaced,
+   *                        e.g. when a parameter type is edited or the project roots change
+   * @return the matcher, e.g. to report its {@link #getStatistics statistics}
+   */
+  @NotNull
+  public static StepDefinitionMatcher attach(@NotNull Collection<? extends AbstractStepDefinition> definitions, @NotNull ModificationTracker... patternTrackers) {
+    StepDefinitionMatcher matcher = new StepDefinitionMatcher(patternTrackers);
+    for (AbstractStepDefinition stepDefinition : definitions) {
+      if (stepDefinition instanceof AbstractDartStepDefinition) {
+        AbstractDartStepDefinition definition = (AbstractDartStepDefinition)stepDefinition;
+        String definitionText = definition.getDefinitionText();
+        matcher.add(definitionText != null ? StepTextTokens.literalPrefix(definitionText) : "", definition);
+        definition.setMatcher(matcher);
+      }
+    }
+    return matcher;
+  }
+
+  private void add(@NotNull String prefix, @NotNull AbstractDartStepDefinition definition) {
+    Node node = myRoot;
+    for (int i = 0; i < prefix.length(); i++) {
+      node = node.getOrCreateChild(prefix.charAt(i));
+    }
+    node.myDefinitions.add(definition);
+  }
+
+  /**
+   * Only a step whose text changed is matched again, every other step of a feature file keeps what it matched the
+   * last time it was highlighted. The Gherkin plugin asks every definition about a step, so the first question runs
+   * the regexes of all candidates at once.
+   */
+  boolean matches(@NotNull AbstractDartStepDefinition definition, @NotNull String stepText) {
+    return getMatches(stepText).myMatched.contains(definition);
+  }
+
+  @NotNull
+  private StepMatches getMatches(@NotNull String stepText) {
+    long stamp = getStamp();
+    // the Gherkin plugin asks every definition about the same step in a row, so try the last one first
+    StepMatches matches = myLastMatches;
+    if (matches != null && matches.myStamp == stamp && matches.myStepText.equals(stepText)) {
+      return matches;
+    }
+
+    synchronized (myMatches) {
+      matches = myMatches.get(stepText);
+    }
+    if (matches == null || matches.myStamp != stamp) {
+      myMisses.incrementAndGet();
+      matches = new StepMatches(stepText, stamp, match(stepText));
+      synchronized (myMatches) {
+        myMatches.put(stepText, matches);
+      }
+    } else {
+      myHits.incrementAndGet();
+    }
+    myLastMatches = matches;
+    return matches;
+  }
+
+  // the trackers only ever go up, so their sum changes whenever one of them does
+  private long getStamp() {
+    long stamp = 0;
+    for (ModificationTracker tracker : myPatternTrackers) {
+      stamp += tracker.getModificationCount();
+    }
+    return stamp;
+  }
+
+  // the definitions without a prefix are shared by every step, so only the ones that matched are kept
+  @NotNull
+  private Set<AbstractDartStepDefinition> match(@NotNull String stepText) {
+    Set<AbstractDartStepDefinition> matched = null;
+    for (List<AbstractDartStepDefinition> candidates : Arrays.asList(myRoot.myDefinitions, collectPrefixedCandidates(stepText))) {
+      for (AbstractDartStepDefinition candidate : candidates) {
+        if (candidate.matchesPattern(stepText)) {
+          if (matched == null) {
+            matched = Collections.newSetFromMap(new IdentityHashMap<>());
+          }
+          matched.add(candidate);
+        }
+      }
+    }
+    return matched != null ? matched : Collections.emptySet();
+  }
+
+  // the definitions whose prefix the step starts with, a definition is only ever filed under one node
+  @NotNull
+  private List<AbstractDartStepDefinition> collectPrefixedCandidates(@NotNull String stepText) {
+    List<AbstractDartStepDefinition> candidates = new ArrayList<>();
+    Node node = myRoot;
+    for (int i = 0; i < stepText.length() && node != null; i++) {
+      node = node.getChild(stepText.charAt(i));
+      if (node != null) {
+        candidates.addAll(node.myDefinitions);
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * @return how often a step text was found in the cache and how often it had to be matched again
+   */
+  @NotNull
+  public String getStatistics() {
+    return String.format("%d step hits, %d step misses", myHits.get(), myMisses.get());
+  }
+
+  private static class Node {
+    private char[] myKeys = new char[0];
+    private Node[] myChildren = new Node[0];
+    private final List<AbstractDartStepDefinition> myDefinitions = new ArrayList<>(0);
+
+    // a node rarely has more than a handful of children, so a linear scan beats hashing
+    @Nullable
+    private Node getChild(char c) {
+      for (int i = 0; i < myKeys.length; i++) {
+        if (myKeys[i] == c) {
+          return myChildren[i];
+        }
+      }
+      return null;
+    }
+
+    @NotNull
+    private Node getOrCreateChild(char c) {
+      Node child = getChild(c);
+      if (child == null) {
+        child = new Node();
+        myKeys = Arrays.copyOf(myKeys, myKeys.length + 1);
+        myChildren = Arrays.copyOf(myChildren, myChildren.length + 1);
+        myKeys[myKeys.length - 1] = c;
+        myChildren[myChildren.length - 1] = child;
+      }
+      return child;
+    }
+  }
+
+  private static class StepMatches {
+    private final String myStepText;
+    private final long myStamp;
+    private final Set<AbstractDartStepDefinition> myMatched;
+
+    private StepMatches(@NotNull String stepText, long stamp, @NotNull Set<AbstractDartStepDefinition> matched) {
+      myStepText = stepText;
+      myStamp = stamp;
+      myMatched = matched;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package dev.bluebiscuitdesign.cucumber.dart.steps;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.plugins.cucumber.ParameterTypeManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The regexes of step definitions and their compiled patterns, shared by every definition and keyed by the
+ * definition text together with the parameter types it was built with. A new set of parameter types is a new
+ * key, so nothing has to be invalidated, the old entries just age out of the cache.
+ */
+public class StepPatternCache {
+  private static final int MAX_SIZE = 4096;
+  private static final StepPatternCache INSTANCE = new StepPatternCache(MAX_SIZE);
+
+  // the same rewriting AbstractStepDefinition.getPattern does before compiling
+  private static final Pattern ESCAPE_PATTERN = Pattern.compile("(#\\{.+?})");
+  private static final String CUCUMBER_START_PREFIX = "\\A";
+  private static final String CUCUMBER_END_SUFFIX = "\\z";
+
+  private final Map<Key, CompiledStep> myCache;
+  private long myHits;
+  private long myMisses;
+  private long myEvictions;
+
+  private StepPatternCache(int maxSize) {
+    myCache = new LinkedHashMap<Key, CompiledStep>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CompiledStep> eldest) {
+        if (size() > maxSize) {
+          myEvictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  public static StepPatternCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @param parameterTypes the parameter types a cucumber expression is built with, or null for a regex
+   * @param toRegex turns the definition text into its regex, only called on a miss
+   */
+  @NotNull
+  public CompiledStep get(@NotNull String definitionText, @Nullable ParameterTypeManager parameterTypes,
+                          @NotNull Function<String, String> toRegex) {
+    Key key = new Key(definitionText, parameterTypes);
+    synchronized (myCache) {
+      CompiledStep cached = myCache.get(key);
+      if (cached != null) {
+        myHits++;
+        return cached;
+      }
+      myMisses++;
+    }
+
+    // built outside the lock, two threads may both do it but they arrive at the same result
+    CompiledStep compiled = new CompiledStep(definitionText, parameterTypes, toRegex.apply(definitionText));
+    synchronized (myCache) {
+      myCache.put(key, compiled);
+    }
+    return compiled;
+  }
+
+  @NotNull
+  public String getStatistics() {
+    synchronized (myCache) {
+      return String.format("%d entries, %d hits, %d misses, %d evictions", myCache.size(), myHits, myMisses, myEvictions);
+    }
+  }
+
+  public static class CompiledStep {
+    @NotNull private final String myDefinitionText;
+    @Nullable private final ParameterTypeManager myParameterTypes;
+    @NotNull private final String myRegex;
+    @Nullable private final Pattern myPattern;
+
+    private CompiledStep(@NotNull String definitionText, @Nullable ParameterTypeManager parameterTypes, @NotNull String regex) {
+      myDefinitionText = definitionText;
+      myParameterTypes = parameterTypes;
+      myRegex = regex;
+      myPattern = compile(regex);
+    }
+
+    /**
+     * @return whether this is the step the cache would return for the definition text and parameter types
+     */
+    public boolean isFor(@NotNull String definitionText, @Nullable ParameterTypeManager parameterTypes) {
+      return myParameterTypes == parameterTypes && myDefinitionText.equals(definitionText);
+    }
+
+    @NotNull
+    public String getRegex() {
+      return myRegex;
+    }
+
+    /**
+     * @return the case sensitive pattern of the regex, or null if it does not compile
+     */
+    @Nullable
+    public Pattern getPattern() {
+      return myPattern;
+    }
+
+    @Nullable
+    private static Pattern compile(@NotNull String regex) {
+      String patternText = ESCAPE_PATTERN.matcher(regex).replaceAll("(.*)");
+      if (patternText.startsWith(CUCUMBER_START_PREFIX)) {
+        patternText = "^" + patternText.substring(CUCUMBER_START_PREFIX.length());
+      }
+      if (patternText.endsWith(CUCUMBER_END_SUFFIX)) {
+        patternText = patternText.substring(0, patternText.length() - CUCUMBER_END_SUFFIX.length()) + "$";
+      }
+      try {
+        return Pattern.compile(patternText);
+      } catch (PatternSyntaxException e) {
+        return null;
+      }
+    }
+  }
+
+  private static class Key {
+    private final String myDefinitionText;
+    private final ParameterTypeManager myParameterTypes;
+
+    private Key(@NotNull String definitionText, @Nullable ParameterTypeManager parameterTypes) {
+      myDefinitionText = definitionText;
+      myParameterTypes = parameterTypes;
+    }
+
+    // the parameter types are compared by identity, they are replaced as a whole when they change
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key key = (Key)o;
+      return myParameterTypes == key.myParameterTypes && myDefinitionText.equals(key.myDefinitionText);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(myDefinitionText, System.identityHashCode(myParameterTypes));
+    }
+  }
+}
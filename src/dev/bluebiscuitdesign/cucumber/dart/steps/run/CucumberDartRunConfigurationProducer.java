@@ -1,5 +1,7 @@
 package dev.bluebiscuitdesign.cucumber.dart.steps.run;
 
+import dev.bluebiscuitdesign.cucumber.dart.DartIndexInputFilter;
+import dev.bluebiscuitdesign.cucumber.dart.DartPublicClassIndex;
 import com.intellij.execution.Location;
 import com.intellij.execution.actions.ConfigurationContext;
 import com.intellij.execution.actions.LazyRunConfigurationProducer;
@@ -11,6 +13,7 @@ import com.intellij.ide.fileTemplates.FileTemplateManager;
 import com.intellij.ide.fileTemplates.FileTemplateUtil;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.util.Ref;
@@ -26,6 +29,8 @@ import com.intellij.psi.PsiManager;
 import com.intellij.psi.search.FileTypeIndex;
 import com.intellij.psi.search.GlobalSearchScopesCore;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.jetbrains.lang.dart.DartFileType;
 import com.jetbrains.lang.dart.psi.DartClassDefinition;
 import com.jetbrains.lang.dart.util.DartUrlResolver;
 import org.jetbrains.annotations.NotNull;
@@ -34,7 +39,9 @@ import org.jetbrains.plugins.cucumber.psi.GherkinFileType;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.stream.Collectors;
 
@@ -302,34 +309,46 @@ abstract public class CucumberDartRunConfigurationProducer extends LazyRunConfig
   }
 
   /**
-   * walk down the tree and find all of the files ready.
+   * walk down the tree and find all of the files ready. The class names come from the index, the PSI is only
+   * walked while indexing is in progress.
    * 
    * @param config
    * @param testDir
    */
   public static void collectStepdefs(RunfileConfig config, VirtualFile testDir) {
+    if (DumbService.isDumb(config.project)) {
+      collectStepdefsFromPsi(config, testDir);
+      return;
+    }
+
+    int offsetLength = testDir.getPath().length()+1;
+    FileBasedIndex index = FileBasedIndex.getInstance();
+    List<VirtualFile> files = new ArrayList<>(FileTypeIndex.getFiles(DartFileType.INSTANCE,
+      GlobalSearchScopesCore.directoryScope(config.project, testDir, true)));
+    files.sort(Comparator.comparing(VirtualFile::getPath));
+
+    for (VirtualFile f : files) {
+      // keep the classes in the order they are declared
+      List<String> classes = index.getFileData(DartPublicClassIndex.INDEX_ID, f, config.project).entrySet().stream()
+        .sorted(Map.Entry.comparingByValue()).map(Map.Entry::getKey).collect(Collectors.toList());
+      addStepClasses(config, f, offsetLength, classes);
+    }
+  }
+
+  private static void collectStepdefsFromPsi(RunfileConfig config, VirtualFile testDir) {
     int offsetLength = testDir.getPath().length()+1;
 
     VfsUtilCore.visitChildrenRecursively(testDir, new VirtualFileVisitor<VirtualFile>() {
       @Override
       public boolean visitFile(@NotNull VirtualFile f) {
         if (!f.isDirectory()) {
-          if (f.getName().toLowerCase().endsWith(".dart")) {
+          // skip what the index skips, so both ways produce the same runner
+          if (f.getName().toLowerCase().endsWith(".dart") && DartIndexInputFilter.isIndexed(f)) {
             PsiFile file = PsiManager.getInstance(config.project).findFile(f);
             // get the non-private classes
-            List<DartClassDefinition> classes =
-              PsiTreeUtil.findChildrenOfType(file, DartClassDefinition.class).stream().filter(c -> c.getName() != null && !c.getName().startsWith("_")).collect(Collectors.toList());
-
-            if (classes.size() > 0) {
-              String importPath = f.getPath().substring(offsetLength);
-              // import the file with an alias
-              String fileAlias = toDartFileAlias(f.getName().substring(0, f.getName().length() - 5)).replaceAll("\\.",
-                "_");
-              // basePath already has a / at the end
-              config.imports.add(String.format("import '%s' as %s;", importPath, fileAlias));
-
-              classes.forEach(c -> config.stepClasses.add(String.format("%s.%s", fileAlias, c.getName())));
-            }
+            List<String> classes =
+              PsiTreeUtil.findChildrenOfType(file, DartClassDefinition.class).stream().map(DartClassDefinition::getName).filter(name -> name != null && !name.startsWith("_")).collect(Collectors.toList());
+            addStepClasses(config, f, offsetLength, classes);
           }
         }
         return true;
@@ -337,6 +356,19 @@ abstract public class CucumberDartRunConfigurationProducer extends LazyRunConfig
     });
   }
 
+  private static void addStepClasses(RunfileConfig config, VirtualFile f, int offsetLength, List<String> classes) {
+    if (classes.size() > 0) {
+      String importPath = f.getPath().substring(offsetLength);
+      // import the file with an alias
+      String fileAlias = toDartFileAlias(f.getName().substring(0, f.getName().length() - 5)).replaceAll("\\.",
+        "_");
+      // basePath already has a / at the end
+      config.imports.add(String.format("import '%s' as %s;", importPath, fileAlias));
+
+      classes.forEach(c -> config.stepClasses.add(String.format("%s.%s", fileAlias, c)));
+    }
+  }
+
   // dart wants it file aliases as underscores, ref: Effective Dart
   private static String toDartFileAlias(String fileAlias) {
     StringBuilder dartFileAlias = new StringBuilder();
@@ -14,16 +14,26 @@
 package dev.bluebiscuitdesign.cucumber.dart.steps.search;
 
 import dev.bluebiscuitdesign.cucumber.dart.CucumberDartUtil;
+import dev.bluebiscuitdesign.cucumber.dart.GherkinStepTextIndex;
+import dev.bluebiscuitdesign.cucumber.dart.StepTextTokens;
+import dev.bluebiscuitdesign.cucumber.dart.steps.DartAnnotatedStepDefinition;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.util.Computable;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.SearchScope;
 import com.intellij.psi.search.searches.ReferencesSearch;
 import com.intellij.util.Processor;
 import com.intellij.util.QueryExecutor;
 import com.jetbrains.lang.dart.psi.DartMethodDeclaration;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.plugins.cucumber.CucumberUtil;
+import org.jetbrains.plugins.cucumber.psi.GherkinStep;
+import org.jetbrains.plugins.cucumber.steps.reference.CucumberStepReference;
+
+import java.util.Set;
 
 public class CucumberJavaStepDefinitionSearch implements QueryExecutor<PsiReference, ReferencesSearch.SearchParameters> {
   @Override
@@ -40,7 +50,12 @@ public class CucumberJavaStepDefinitionSearch implements QueryExecutor<PsiRefere
           String regexp = CucumberDartUtil.findDartAnnotationText(dc);
 
           if (regexp != null) {
-            return CucumberUtil.findGherkinReferencesToElement(myElement, regexp, consumer, queryParameters.getEffectiveSearchScope());
+            SearchScope scope = queryParameters.getEffectiveSearchScope();
+            Set<String> words = StepTextTokens.requiredWords(regexp);
+            if (scope instanceof GlobalSearchScope && !words.isEmpty() && !DumbService.isDumb(myElement.getProject())) {
+              return findGherkinReferencesToElement(myElement, dc, words, (GlobalSearchScope)scope, consumer);
+            }
+            return CucumberUtil.findGherkinReferencesToElement(myElement, regexp, consumer, scope);
           }
         }
 
@@ -48,4 +63,41 @@ public class CucumberJavaStepDefinitionSearch implements QueryExecutor<PsiRefere
       }
     });
   }
+
+  // only the steps containing every literal word of the definition are matched against it, and their references
+  // are reported as soon as they are found
+  private static boolean findGherkinReferencesToElement(@NotNull PsiElement myElement, @NotNull DartMethodDeclaration dc,
+                                                        @NotNull Set<String> words, @NotNull GlobalSearchScope scope,
+                                                        @NotNull Processor<? super PsiReference> consumer) {
+    String annotation = CucumberDartUtil.findDartCucumberAnnotation(dc);
+    if (annotation == null) {
+      return true;
+    }
+    DartAnnotatedStepDefinition definition = new DartAnnotatedStepDefinition(dc, annotation);
+
+    return GherkinStepTextIndex.processStepsWithWords(myElement.getProject(), words, scope, step -> {
+      if (!matchesAnyName(definition, step)) {
+        return true;
+      }
+      for (PsiReference reference : step.getReferences()) {
+        if (reference instanceof CucumberStepReference && reference.isReferenceTo(myElement) && !consumer.process(reference)) {
+          return false;
+        }
+      }
+      return true;
+    });
+  }
+
+  private static boolean matchesAnyName(@NotNull DartAnnotatedStepDefinition definition, @NotNull GherkinStep step) {
+    Set<String> names = step.getSubstitutedNameList();
+    if (names.isEmpty()) {
+      return definition.matches(step.getName());
+    }
+    for (String name : names) {
+      if (definition.matches(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
@@ -0,0 +1,38 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A small timing harness for the *Benchmark classes next to the tests. They are plain main methods, not tests, so
+ * they never slow the test run down: each one times a round of operations several times after warming it up, and
+ * prints the fastest round per operation.
+ */
+final class Benchmark {
+  private static final int WARMUP_ROUNDS = 10;
+  private static final int ROUNDS = 10;
+
+  // every round's result ends up here, so the JIT can't drop the work as unused
+  static volatile long ourSink;
+
+  private Benchmark() {
+  }
+
+  /**
+   * @param operations how many operations one round performs
+   * @param round performs the operations and returns anything derived from their results
+   */
+  static void run(@NotNull String name, int operations, @NotNull LongSupplier round) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      ourSink += round.getAsLong();
+    }
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < ROUNDS; i++) {
+      long start = System.nanoTime();
+      ourSink += round.getAsLong();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    System.out.println(String.format("%-50s %10.1f ns/op", name, (double)best / operations));
+  }
+}
@@ -0,0 +1,100 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BytePatternMatcherTest {
+  private static final BytePatternMatcher OGURETS = BytePatternMatcher.create(Arrays.asList("package:ogurets/", "package:ogurets_flutter/"));
+
+  @Test
+  public void findsAnyPattern() {
+    assertTrue(OGURETS.containsAny(utf8("import 'package:ogurets/ogurets.dart';")));
+    assertTrue(OGURETS.containsAny(utf8("import 'package:ogurets_flutter/ogurets_flutter.dart';")));
+    assertTrue(OGURETS.containsAny(utf8("package:ogurets/")));
+  }
+
+  @Test
+  public void missesOtherContent() {
+    assertFalse(OGURETS.containsAny(utf8("import 'package:flutter/material.dart';")));
+    assertFalse(OGURETS.containsAny(utf8("import 'package:ogurets_other/ogurets.dart';")));
+    assertFalse(OGURETS.containsAny(utf8("package:ogurets")));
+    assertFalse(OGURETS.containsAny(utf8("PACKAGE:OGURETS/")));
+    assertFalse(OGURETS.containsAny(new byte[0]));
+  }
+
+  @Test
+  public void overlappingPatterns() {
+    BytePatternMatcher matcher = BytePatternMatcher.create(Arrays.asList("he", "she", "hers", "his"));
+    assertTrue(matcher.containsAny(utf8("ushers")));
+    assertTrue(matcher.containsAny(utf8("this")));
+    assertFalse(matcher.containsAny(utf8("hx sx")));
+
+    // only found by following the failure link out of the longer, broken off pattern
+    BytePatternMatcher nested = BytePatternMatcher.create(Arrays.asList("abcd", "bce"));
+    assertTrue(nested.containsAny(utf8("xabce")));
+    assertFalse(nested.containsAny(utf8("xabcxd")));
+
+    // a pattern inside another one
+    BytePatternMatcher inner = BytePatternMatcher.create(Arrays.asList("package:ogurets_flutter/", "ogurets_"));
+    assertTrue(inner.containsAny(utf8("package:ogurets_x")));
+  }
+
+  @Test
+  public void repeatedPrefixes() {
+    BytePatternMatcher matcher = BytePatternMatcher.create(Collections.singletonList("aab"));
+    assertTrue(matcher.containsAny(utf8("aaaab")));
+    assertFalse(matcher.containsAny(utf8("abab")));
+  }
+
+  @Test
+  public void emptyPatternsAreIgnored() {
+    BytePatternMatcher matcher = BytePatternMatcher.create(Arrays.asList("", "x"));
+    assertFalse(matcher.containsAny(utf8("abc")));
+    assertTrue(matcher.containsAny(utf8("axc")));
+    assertFalse(BytePatternMatcher.create(Collections.emptyList()).containsAny(utf8("abc")));
+  }
+
+  @Test
+  public void nonAsciiUtf8Content() {
+    assertTrue(OGURETS.containsAny(utf8("// Größe 假如 Дано\nimport 'package:ogurets/ogurets.dart';")));
+    assertFalse(OGURETS.containsAny(utf8("// Größe 假如 Дано package:ögurets/")));
+  }
+
+  @Test
+  public void utf16WithByteOrderMark() {
+    String source = "// Дано\nimport 'package:ogurets/ogurets.dart';";
+    assertTrue(OGURETS.containsAny(utf16(source, StandardCharsets.UTF_16BE, 0xfe, 0xff)));
+    assertTrue(OGURETS.containsAny(utf16(source, StandardCharsets.UTF_16LE, 0xff, 0xfe)));
+    assertFalse(OGURETS.containsAny(utf16("import 'package:flutter/material.dart';", StandardCharsets.UTF_16BE, 0xfe, 0xff)));
+    assertFalse(OGURETS.containsAny(utf16("import 'package:flutter/material.dart';", StandardCharsets.UTF_16LE, 0xff, 0xfe)));
+  }
+
+  @Test
+  public void utf16CharactersOutsideAsciiBreakAMatch() {
+    // U+0162 has 0x62, a 'b', as its low byte
+    BytePatternMatcher matcher = BytePatternMatcher.create(Collections.singletonList("ab"));
+    assertFalse(matcher.containsAny(utf16("aŢ", StandardCharsets.UTF_16BE, 0xfe, 0xff)));
+    assertFalse(matcher.containsAny(utf16("aŢ", StandardCharsets.UTF_16LE, 0xff, 0xfe)));
+    assertTrue(matcher.containsAny(utf16("Ţab", StandardCharsets.UTF_16LE, 0xff, 0xfe)));
+  }
+
+  private static byte[] utf8(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] utf16(String text, Charset charset, int firstBomByte, int secondBomByte) {
+    byte[] bytes = text.getBytes(charset);
+    byte[] result = new byte[bytes.length + 2];
+    result[0] = (byte)firstBomByte;
+    result[1] = (byte)secondBomByte;
+    System.arraycopy(bytes, 0, result, 2, bytes.length);
+    return result;
+  }
+}
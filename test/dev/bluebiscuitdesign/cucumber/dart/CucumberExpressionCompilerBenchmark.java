@@ -0,0 +1,89 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.jetbrains.plugins.cucumber.CucumberUtil;
+import org.jetbrains.plugins.cucumber.MapParameterTypeManager;
+import org.jetbrains.plugins.cucumber.ParameterTypeManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the way step definition patterns were classified and turned into regexes before, four regex matchers
+ * and the Gherkin plugin's buildRegexpFromCucumberExpression, with CucumberExpressionCompiler. Needs the Gherkin
+ * plugin on the classpath.
+ */
+public class CucumberExpressionCompilerBenchmark {
+  private static final Pattern BEGIN_ANCHOR = Pattern.compile("^\\^.*");
+  private static final Pattern END_ANCHOR = Pattern.compile(".*\\$$");
+  private static final Pattern SCRIPT_STYLE_REGEXP = Pattern.compile("^/(.*)/$");
+  private static final Pattern PARENTHESIS = Pattern.compile("\\(([^)]+)\\)");
+  private static final Pattern ALPHA = Pattern.compile("[a-zA-Z]+");
+
+  private static final String[] TEMPLATES = {
+    "I have {int} cucumber(s) in my belly/stomach",
+    "the user %d opens the {string} page",
+    "I enter {string} into the field number %d",
+    "^the account %d has a balance of (\\d+) euros$",
+    "a widget with key %d is shown/visible",
+    "I wait {float} second(s) for screen %d",
+    "I tap the \\(optional\\) button %d",
+    "/^the list %d contains (.*) items$/",
+  };
+
+  public static void main(String[] args) {
+    ParameterTypeManager parameterTypes = new MapParameterTypeManager(CucumberDartUtil.STANDARD_PARAMETER_TYPES);
+    List<String> patterns = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      patterns.add(String.format(TEMPLATES[i % TEMPLATES.length], i));
+    }
+    List<String> expressions = new ArrayList<>();
+    for (String pattern : patterns) {
+      if (CucumberExpressionCompiler.isCucumberExpression(pattern)) {
+        expressions.add(pattern);
+      }
+    }
+
+    Benchmark.run("classify, four regex matchers", patterns.size(), () -> {
+      long count = 0;
+      for (String pattern : patterns) {
+        count += isCucumberExpressionByRegex(pattern) ? 1 : 0;
+      }
+      return count;
+    });
+    Benchmark.run("classify, single pass (memoized)", patterns.size(), () -> {
+      long count = 0;
+      for (String pattern : patterns) {
+        count += CucumberExpressionCompiler.isCucumberExpression(pattern) ? 1 : 0;
+      }
+      return count;
+    });
+    Benchmark.run("to regex, buildRegexpFromCucumberExpression", expressions.size(), () -> {
+      long length = 0;
+      for (String expression : expressions) {
+        length += CucumberUtil.buildRegexpFromCucumberExpression(expression, parameterTypes).length();
+      }
+      return length;
+    });
+    Benchmark.run("to regex, CucumberExpressionCompiler", expressions.size(), () -> {
+      long length = 0;
+      for (String expression : expressions) {
+        length += CucumberExpressionCompiler.toRegex(expression, parameterTypes).length();
+      }
+      return length;
+    });
+  }
+
+  private static boolean isCucumberExpressionByRegex(String expression) {
+    if (BEGIN_ANCHOR.matcher(expression).find() || END_ANCHOR.matcher(expression).find() ||
+        SCRIPT_STYLE_REGEXP.matcher(expression).find()) {
+      return false;
+    }
+    Matcher m = PARENTHESIS.matcher(expression);
+    if (m.find()) {
+      return ALPHA.matcher(m.group(1)).lookingAt();
+    }
+    return true;
+  }
+}
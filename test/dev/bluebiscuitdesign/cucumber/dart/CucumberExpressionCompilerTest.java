@@ -0,0 +1,136 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.jetbrains.plugins.cucumber.CucumberUtil;
+import org.jetbrains.plugins.cucumber.MapParameterTypeManager;
+import org.jetbrains.plugins.cucumber.ParameterTypeManager;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the compiler against the Gherkin plugin's buildRegexpFromCucumberExpression, which step definitions used
+ * before: both regexes have to agree on every step text, and the compiler's has to give the expected answer.
+ */
+public class CucumberExpressionCompilerTest {
+  private static final ParameterTypeManager PARAMETER_TYPES = createParameterTypes();
+
+  // the patterns the cucumber heuristics were written for, and what the regex based classifier said about them
+  private static final String[] EXPRESSIONS = {
+    "I have {int} cukes", "I have cuke(s)", "I eat a/an apple", "plain text", "it costs 5$ or more", "a (b)",
+    "I have () and (x)", "the {string} page", "",
+  };
+  private static final String[] REGEXES = {
+    "^I have (\\d+) cukes$", "^starts here", "ends here$", "/script style/", "I have (\\d+) cukes", "a (.*) b", "((a)",
+  };
+
+  @Test
+  public void classifiesLikeTheCucumberHeuristics() {
+    for (String expression : EXPRESSIONS) {
+      assertEquals(expression, isCucumberExpressionByRegex(expression), CucumberExpressionCompiler.isCucumberExpression(expression));
+      assertTrue(expression, CucumberExpressionCompiler.isCucumberExpression(expression));
+    }
+    for (String regex : REGEXES) {
+      assertEquals(regex, isCucumberExpressionByRegex(regex), CucumberExpressionCompiler.isCucumberExpression(regex));
+      assertFalse(regex, CucumberExpressionCompiler.isCucumberExpression(regex));
+    }
+  }
+
+  @Test
+  public void optionals() {
+    assertMatches("I have {int} cuke(s)", "I have 1 cuke", "I have 42 cukes");
+    assertNoMatch("I have {int} cuke(s)", "I have 42 cukess", "I have many cukes");
+    assertMatches("(it )is red", "it is red", "is red");
+  }
+
+  @Test
+  public void alternatives() {
+    assertMatches("I eat a/an apple/orange", "I eat a apple", "I eat an orange");
+    assertNoMatch("I eat a/an apple/orange", "I eat the apple", "I eat a/an apple", "I eat an pear");
+    assertMatches("x/y/z.", "x", "y", "z.");
+    assertNoMatch("x/y/z.", "x.", "xy");
+  }
+
+  @Test
+  public void escapes() {
+    assertMatches("I use \\(parentheses\\) and \\{braces\\}", "I use (parentheses) and {braces}");
+    assertNoMatch("I use \\(parentheses\\) and \\{braces\\}", "I use parentheses and {braces}");
+    assertMatches("either \\/ or", "either / or");
+    assertNoMatch("either \\/ or", "either  or");
+  }
+
+  @Test
+  public void parameterTypes() {
+    assertMatches("a {word} and {} end", "a foo and anything at all end");
+    assertNoMatch("a {word} and {} end", "a two words and x end");
+    assertMatches("the {string} page with {float} items", "the \"home\" page with 1.5 items", "the 'home' page with 2 items");
+    assertNoMatch("the {string} page with {float} items", "the home page with 2 items");
+    assertMatches("a {color} car", "a red car", "a blue car");
+    assertNoMatch("a {color} car", "a green car");
+  }
+
+  @Test
+  public void regexCharactersAreLiteral() {
+    assertMatches("a ^ b costs 5$ in total. really?", "a ^ b costs 5$ in total. really?");
+    assertNoMatch("a ^ b costs 5$ in total. really?", "a ^ b costs 5$ in totalx really");
+    assertMatches("I see #{int} items", "I see #3 items");
+    assertNoMatch("I see #{int} items", "I see 3 items", "I see #three items");
+    assertMatches("[tag] *everything* +more", "[tag] *everything* +more");
+  }
+
+  @Test
+  public void anchoredAtBothEnds() {
+    assertNoMatch("I have {int} cukes", "Given I have 1 cukes", "I have 1 cukes today");
+  }
+
+  @Test
+  public void trailingBackslashIsLiteral() {
+    assertEquals("^I have cukes\\\\$", CucumberExpressionCompiler.toRegex("I have cukes\\", PARAMETER_TYPES));
+    assertTrue(Pattern.compile(CucumberExpressionCompiler.toRegex("I have cukes\\", PARAMETER_TYPES)).matcher("I have cukes\\").matches());
+    assertEquals("^(?:a|b\\\\)$", CucumberExpressionCompiler.toRegex("a/b\\", PARAMETER_TYPES));
+  }
+
+  private static void assertMatches(String expression, String... steps) {
+    for (String step : steps) {
+      assertTrue(expression + " should match " + step, matches(expression, step));
+    }
+  }
+
+  private static void assertNoMatch(String expression, String... steps) {
+    for (String step : steps) {
+      assertFalse(expression + " should not match " + step, matches(expression, step));
+    }
+  }
+
+  private static boolean matches(String expression, String step) {
+    boolean compiled = Pattern.compile(CucumberExpressionCompiler.toRegex(expression, PARAMETER_TYPES)).matcher(step).matches();
+    boolean gherkin = Pattern.compile(CucumberUtil.buildRegexpFromCucumberExpression(expression, PARAMETER_TYPES)).matcher(step).matches();
+    assertEquals(expression + " on " + step + " differs from the Gherkin plugin", gherkin, compiled);
+    return compiled;
+  }
+
+  private static ParameterTypeManager createParameterTypes() {
+    Map<String, String> parameterTypes = new HashMap<>(CucumberDartUtil.STANDARD_PARAMETER_TYPES);
+    parameterTypes.put("color", "red|blue|yellow");
+    return new MapParameterTypeManager(parameterTypes);
+  }
+
+  // the four matchers isCucumberExpression ran before the single pass classifier
+  private static boolean isCucumberExpressionByRegex(String expression) {
+    if (Pattern.compile("^\\^.*").matcher(expression).find() || Pattern.compile(".*\\$$").matcher(expression).find() ||
+        Pattern.compile("^/(.*)/$").matcher(expression).find()) {
+      return false;
+    }
+    Matcher m = Pattern.compile("\\(([^)]+)\\)").matcher(expression);
+    if (m.find()) {
+      return Pattern.compile("[a-zA-Z]+").matcher(m.group(1)).lookingAt();
+    }
+    return true;
+  }
+}
@@ -0,0 +1,68 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Compares decoding the step annotation corpus with DartStringLiterals against the stripQuotes it replaced. Also
+ * counts the entries each of them gets wrong.
+ */
+public class DartStringLiteralsBenchmark {
+  private static final int REPEAT = 1000;
+
+  public static void main(String[] args) throws IOException {
+    List<String[]> corpus = DartStringLiteralsTest.readCorpus();
+
+    System.out.println(String.format("%d corpus entries, stripQuotes gets %d wrong, DartStringLiterals %d", corpus.size(),
+      countWrong(corpus, false), countWrong(corpus, true)));
+    Benchmark.run("stripQuotes", corpus.size() * REPEAT, () -> {
+      long length = 0;
+      for (int i = 0; i < REPEAT; i++) {
+        for (String[] entry : corpus) {
+          length += stripQuotes(entry[0]).length();
+        }
+      }
+      return length;
+    });
+    Benchmark.run("DartStringLiterals.decode", corpus.size() * REPEAT, () -> {
+      long length = 0;
+      for (int i = 0; i < REPEAT; i++) {
+        for (String[] entry : corpus) {
+          length += DartStringLiterals.decode(entry[0]).length();
+        }
+      }
+      return length;
+    });
+  }
+
+  private static int countWrong(List<String[]> corpus, boolean decode) {
+    int wrong = 0;
+    for (String[] entry : corpus) {
+      String value = decode ? DartStringLiterals.decode(entry[0]) : stripQuotes(entry[0]);
+      if (!value.equals(entry[1])) {
+        wrong++;
+      }
+    }
+    return wrong;
+  }
+
+  // CucumberDartUtil.stripQuotes as it was, without the println of every call it also did
+  private static String stripQuotes(String str) {
+    str = str.trim();
+    if (str.startsWith("(") && str.endsWith(")")) {
+      str = str.substring(1, str.length() - 1);
+    }
+    str = str.replace("\n", " ").replace("\r", "").trim();
+    if (str.startsWith("r\"") || str.startsWith("r'")) {
+      str = str.substring(2);
+    }
+    if (str.startsWith("\"") || str.startsWith("'")) {
+      str = str.substring(1);
+    }
+    if (str.endsWith("\"") || str.endsWith("'")) {
+      str = str.substring(0, str.length() - 1);
+    }
+    str = str.replace("\\$", "$");
+    return str;
+  }
+}
@@ -0,0 +1,139 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * The Dart source text of each literal is written with the Java escapes it needs, e.g. the Dart literal '\\d' is
+ * "'\\\\d'" here.
+ */
+public class DartStringLiteralsTest {
+  @Test
+  public void plainLiterals() {
+    assertEquals("I have a step", DartStringLiterals.decode("'I have a step'"));
+    assertEquals("I have a step", DartStringLiterals.decode("\"I have a step\""));
+    assertEquals("it's", DartStringLiterals.decode("\"it's\""));
+    assertEquals("", DartStringLiterals.decode("''"));
+  }
+
+  @Test
+  public void argumentListAndWhitespace() {
+    assertEquals("a step", DartStringLiterals.decode("(  'a step')"));
+    assertEquals("a step", DartStringLiterals.decode("  'a step'  "));
+  }
+
+  @Test
+  public void rawLiterals() {
+    assertEquals("^I have (\\d+) cukes$", DartStringLiterals.decode("r'^I have (\\d+) cukes$'"));
+    assertEquals("\\n stays", DartStringLiterals.decode("r\"\\n stays\""));
+    assertEquals("$name", DartStringLiterals.decode("r'$name'"));
+  }
+
+  @Test
+  public void escapedLiterals() {
+    assertEquals("^I have (\\d+) cukes$", DartStringLiterals.decode("'^I have (\\\\d+) cukes\\$'"));
+    assertEquals("it's", DartStringLiterals.decode("'it\\'s'"));
+    assertEquals("say \"hi\"", DartStringLiterals.decode("\"say \\\"hi\\\"\""));
+    assertEquals("a\nb\rc\td\be\ff\u000Bg", DartStringLiterals.decode("'a\\nb\\rc\\td\\be\\ff\\vg'"));
+    assertEquals("q", DartStringLiterals.decode("'\\q'"));
+  }
+
+  @Test
+  public void hexEscapes() {
+    assertEquals("A", DartStringLiterals.decode("'\\x41'"));
+    assertEquals("é!", DartStringLiterals.decode("'\\xe9!'"));
+    // not two hex digits, kept as written
+    assertEquals("\\xZZ", DartStringLiterals.decode("'\\xZZ'"));
+    assertEquals("\\x4", DartStringLiterals.decode("'\\x4'"));
+  }
+
+  @Test
+  public void unicodeEscapes() {
+    assertEquals("é", DartStringLiterals.decode("'\\u00e9'"));
+    assertEquals("é", DartStringLiterals.decode("'\\u{e9}'"));
+    assertEquals(new String(Character.toChars(0x1F952)), DartStringLiterals.decode("'\\u{1F952}'"));
+    // malformed escapes are kept as written
+    assertEquals("\\u{", DartStringLiterals.decode("'\\u{'"));
+    assertEquals("\\u{zz}", DartStringLiterals.decode("'\\u{zz}'"));
+    assertEquals("\\u{110000}", DartStringLiterals.decode("'\\u{110000}'"));
+    assertEquals("a\\u{}b", DartStringLiterals.decode("'a\\u{}b'"));
+    assertEquals("\\u12", DartStringLiterals.decode("'\\u12'"));
+  }
+
+  @Test
+  public void tripleQuotedLiterals() {
+    assertEquals("one\ntwo", DartStringLiterals.decode("'''one\ntwo'''"));
+    assertEquals("one\ntwo", DartStringLiterals.decode("\"\"\"\none\ntwo\"\"\""));
+    assertEquals("one", DartStringLiterals.decode("'''  \r\none'''"));
+    assertEquals("it's 'quoted' here", DartStringLiterals.decode("'''it's 'quoted' here'''"));
+    assertEquals("\\d", DartStringLiterals.decode("r'''\\d'''"));
+  }
+
+  @Test
+  public void adjacentLiterals() {
+    assertEquals("I have a cuke", DartStringLiterals.decode("'I have ' \"a \"\n  r'cuke'"));
+  }
+
+  @Test
+  public void interpolationsAreKeptAsWritten() {
+    assertEquals("I have $count cukes", DartStringLiterals.decode("'I have $count cukes'"));
+    assertEquals("I have ${count + 1} cukes", DartStringLiterals.decode("'I have ${count + 1} cukes'"));
+  }
+
+  @Test
+  public void notAStringLiteral() {
+    assertEquals("someConstant", DartStringLiterals.decode(" someConstant "));
+    // only a lower case r makes a raw string in Dart
+    assertEquals("R\"\\n stays\"", DartStringLiterals.decode("R\"\\n stays\""));
+  }
+
+  @Test
+  public void unterminatedLiteral() {
+    assertEquals("a step", DartStringLiterals.decode("'a step"));
+  }
+
+  @Test
+  public void range() {
+    String source = "@Given('a step') void aStep() {}";
+    assertEquals("a step", DartStringLiterals.decode(source, source.indexOf('('), source.indexOf(')') + 1));
+  }
+
+  @Test
+  public void stepAnnotationCorpus() throws IOException {
+    List<String[]> corpus = readCorpus();
+    assertFalse(corpus.isEmpty());
+    for (String[] entry : corpus) {
+      assertEquals(entry[0], entry[1], DartStringLiterals.decode(entry[0]));
+    }
+  }
+
+  /**
+   * @return the source text and the expected value of every entry in step-annotations.txt
+   */
+  static List<String[]> readCorpus() throws IOException {
+    InputStream stream = DartStringLiteralsTest.class.getResourceAsStream("step-annotations.txt");
+    assertNotNull(stream);
+    List<String[]> result = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        int tab = line.indexOf('\t');
+        result.add(new String[]{line.substring(0, tab), line.substring(tab + 1)});
+      }
+    }
+    return result;
+  }
+}
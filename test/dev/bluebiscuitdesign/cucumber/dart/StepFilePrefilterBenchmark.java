@@ -0,0 +1,69 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import com.intellij.util.text.StringSearcher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The cost per file of deciding whether a Dart file can hold step definitions, as every Dart indexer does first: the
+ * old way decoded the content and ran a new StringSearcher per package over it, the new one runs a
+ * {@link BytePatternMatcher} over the raw bytes. One file in ten imports Ogurets, like in a typical Flutter app.
+ */
+public class StepFilePrefilterBenchmark {
+  private static final List<String> PACKAGES = Arrays.asList("package:ogurets/", "package:ogurets_flutter/", "package:my_steps/steps.dart");
+  private static final int FILES = 500;
+
+  public static void main(String[] args) {
+    List<byte[]> files = new ArrayList<>();
+    for (int i = 0; i < FILES; i++) {
+      files.add(createFile(i, i % 10 == 0).getBytes(StandardCharsets.UTF_8));
+    }
+    BytePatternMatcher matcher = BytePatternMatcher.create(PACKAGES);
+
+    Benchmark.run("decode + StringSearcher per package", files.size(), () -> {
+      long hits = 0;
+      for (byte[] content : files) {
+        CharSequence text = new String(content, StandardCharsets.UTF_8);
+        for (String pkg : PACKAGES) {
+          if (new StringSearcher(pkg, true, true).scan(text) > 0) {
+            hits++;
+            break;
+          }
+        }
+      }
+      return hits;
+    });
+    Benchmark.run("BytePatternMatcher.containsAny(bytes)", files.size(), () -> {
+      long hits = 0;
+      for (byte[] content : files) {
+        if (matcher.containsAny(content)) {
+          hits++;
+        }
+      }
+      return hits;
+    });
+  }
+
+  // about 6kB of widget code, the imports come first like in any Dart file
+  private static String createFile(int index, boolean steps) {
+    StringBuilder text = new StringBuilder();
+    text.append("import 'package:flutter/material.dart';\n");
+    text.append("import 'package:provider/provider.dart';\n");
+    if (steps) {
+      text.append("import 'package:ogurets/ogurets.dart';\n");
+    }
+    text.append("import '../models/item_").append(index).append(".dart';\n\n");
+    for (int widget = 0; widget < 20; widget++) {
+      text.append("class ItemWidget").append(index).append('_').append(widget).append(" extends StatelessWidget {\n")
+        .append("  final String title;\n\n")
+        .append("  const ItemWidget").append(index).append('_').append(widget).append("({Key? key, required this.title}) : super(key: key);\n\n")
+        .append("  @override\n")
+        .append("  Widget build(BuildContext context) => Padding(padding: const EdgeInsets.all(8), child: Text(title));\n")
+        .append("}\n\n");
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,62 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Measures the heap retained by the step definition entries read from the step index, with and without sharing
+ * their strings between reads. Every read of the index creates new entries, and while an old read is still
+ * referenced by a cache a new one is held next to it, so the same pattern text can be in memory several times over.
+ * The index shares them through the platform's weak interner, a plain map stands in for it here.
+ */
+public class StepIndexHeapBenchmark {
+  private static final int FILES = 200;
+  private static final int STEPS_PER_FILE = 25;
+  private static final int LIVE_READS = 3;
+
+  public static void main(String[] args) {
+    System.out.println(String.format("%d step definitions, %d reads kept alive", FILES * STEPS_PER_FILE, LIVE_READS));
+    measure("new strings per read", UnaryOperator.identity());
+    Map<String, String> interned = new HashMap<>();
+    measure("strings shared between reads", text -> interned.computeIfAbsent(text, k -> k));
+  }
+
+  private static void measure(String name, UnaryOperator<String> intern) {
+    long before = usedHeap();
+    List<List<StepDefinitionIndexEntry>> reads = new ArrayList<>();
+    for (int i = 0; i < LIVE_READS; i++) {
+      reads.add(read(intern));
+    }
+    long retained = usedHeap() - before;
+    System.out.println(String.format("%-50s %10.1f bytes/step", name, (double)retained / (FILES * STEPS_PER_FILE * LIVE_READS)));
+    Benchmark.ourSink += reads.size();
+  }
+
+  // the strings are rebuilt from characters the way the index externalizer reads them, each read gets its own copy
+  private static List<StepDefinitionIndexEntry> read(UnaryOperator<String> intern) {
+    List<StepDefinitionIndexEntry> entries = new ArrayList<>(FILES * STEPS_PER_FILE);
+    for (int file = 0; file < FILES; file++) {
+      for (int step = 0; step < STEPS_PER_FILE; step++) {
+        String pattern = copy("the user of account " + file + " opens the {string} page and sees {int} items " + step);
+        String methodName = copy("theUserOfAccountOpensPage" + file + "_" + step);
+        entries.add(new StepDefinitionIndexEntry("Given", intern.apply(pattern), intern.apply(methodName), step * 120 + 40, step * 120));
+      }
+    }
+    return entries;
+  }
+
+  private static String copy(String text) {
+    return new String(text.toCharArray());
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,53 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import dev.bluebiscuitdesign.cucumber.dart.steps.reference.CucumberJavaAnnotationProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The cost per annotation of deciding whether a piece of metadata is a step definition, as the step indexer does
+ * for every annotation of every Dart file: the old List.contains over the Gherkin keywords with a String per
+ * annotation, against the compiled {@link StepKeywordMatcher} working on the file text.
+ */
+public class StepKeywordMatcherBenchmark {
+  // roughly the mix of a step file, most annotations are steps but there is always some other metadata
+  private static final List<String> ANNOTATIONS = Arrays.asList("Given", "When", "Then", "And", "But", "override", "Given",
+    "When", "Then", "deprecated", "And", "JsonKey", "Before", "After", "visibleForTesting", "Dado", "Angenommen", "Quando");
+  private static final int REPEAT = 1000;
+
+  public static void main(String[] args) {
+    StringBuilder text = new StringBuilder();
+    List<int[]> ranges = new ArrayList<>();
+    for (int i = 0; i < REPEAT; i++) {
+      for (String annotation : ANNOTATIONS) {
+        text.append('@');
+        ranges.add(new int[]{text.length(), text.length() + annotation.length()});
+        text.append(annotation).append("('some step') void aStep() {}\n");
+      }
+    }
+
+    List<String> keywords = CucumberStepIndex.STEP_KEYWORDS;
+    StepKeywordMatcher matcher = StepKeywordMatcher.create(CucumberJavaAnnotationProvider.STEP_MARKERS, keywords);
+
+    Benchmark.run("List.contains(subSequence.toString())", ranges.size(), () -> {
+      long hits = 0;
+      for (int[] range : ranges) {
+        if (keywords.contains(text.subSequence(range[0], range[1]).toString())) {
+          hits++;
+        }
+      }
+      return hits;
+    });
+    Benchmark.run("StepKeywordMatcher.matches(text, start, end)", ranges.size(), () -> {
+      long hits = 0;
+      for (int[] range : ranges) {
+        if (matcher.matches(text, range[0], range[1])) {
+          hits++;
+        }
+      }
+      return hits;
+    });
+  }
+}
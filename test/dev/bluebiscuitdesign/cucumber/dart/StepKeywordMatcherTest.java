@@ -0,0 +1,62 @@
+package dev.bluebiscuitdesign.cucumber.dart;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StepKeywordMatcherTest {
+  private static final StepKeywordMatcher MATCHER =
+    StepKeywordMatcher.create(Arrays.asList("Given", "When", "Then", "And", "But"), Arrays.asList("Angenommen", "Дано", "假如", "Gegeben sei"));
+
+  @Test
+  public void markersAndDialectKeywordsMatch() {
+    for (String keyword : Arrays.asList("Given", "When", "Then", "And", "But", "Angenommen", "Дано", "假如", "Gegeben sei")) {
+      assertTrue(keyword, MATCHER.matches(keyword));
+    }
+  }
+
+  @Test
+  public void otherNamesDoNotMatch() {
+    for (String name : Arrays.asList("override", "deprecated", "JsonKey", "given", "GIVEN", "Give", "Givens", "An", "Andy", "", "Дан")) {
+      assertFalse(name, MATCHER.matches(name));
+    }
+  }
+
+  @Test
+  public void rangesOfALargerText() {
+    String text = "@override @Given('x') @Whenever @Then";
+    assertFalse(MATCHER.matches(text, 1, 9));
+    assertTrue(MATCHER.matches(text, 11, 16));
+    // a longer name that starts with a keyword is not a match
+    assertFalse(MATCHER.matches(text, 23, 31));
+    assertTrue(MATCHER.matches(text, 33, 37));
+  }
+
+  @Test
+  public void withoutDialectKeywords() {
+    StepKeywordMatcher matcher = StepKeywordMatcher.create(Arrays.asList("Before", "After"), null);
+    assertTrue(matcher.matches("Before"));
+    assertTrue(matcher.matches("After"));
+    assertFalse(matcher.matches("Given"));
+  }
+
+  @Test
+  public void emptySetMatchesNothing() {
+    StepKeywordMatcher matcher = StepKeywordMatcher.create(Collections.emptyList(), null);
+    assertFalse(matcher.matches("Given"));
+    assertFalse(matcher.matches(""));
+  }
+
+  @Test
+  public void duplicatesAndCollidingHashes() {
+    // "Aa" and "BB" have the same String hash code
+    StepKeywordMatcher matcher = StepKeywordMatcher.create(Arrays.asList("Aa", "BB", "Aa"), Collections.singletonList("BB"));
+    assertTrue(matcher.matches("Aa"));
+    assertTrue(matcher.matches("BB"));
+    assertFalse(matcher.matches("AB"));
+  }
+}